@@ -0,0 +1,35 @@
+package de.eldritch.anura.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the regular JMH command line options, but always adds the
+ * {@link GCProfiler}, so every result reports allocation rate and bytes per operation next to its throughput.
+ * <p>Benchmarks that need a database are skipped unless {@link BenchmarkRunner#DB_URL_ENV} is set.
+ */
+public class BenchmarkRunner {
+    /**
+     * Environment variables with the JDBC URL and credentials of a MySQL database for benchmarks that need one.
+     */
+    public static final String DB_URL_ENV      = "ANURA_BENCH_DB_URL";
+    public static final String DB_USER_ENV     = "ANURA_BENCH_DB_USER";
+    public static final String DB_PASSWORD_ENV = "ANURA_BENCH_DB_PASSWORD";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(options).addProfiler(GCProfiler.class);
+        if (System.getenv(DB_URL_ENV) == null)
+            builder.exclude("StatementCacheBenchmark");
+
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,56 @@
+package de.eldritch.anura.benchmark;
+
+import de.eldritch.anura.core.guild.GuildManager;
+import de.eldritch.anura.util.LongConcurrentMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lookup behind {@link GuildManager#getContainer(long)}, which runs at the start of every interaction.
+ * <p>A real {@link de.eldritch.anura.core.guild.GuildContainer GuildContainer} can only be created for a running
+ * instance, so this measures the same <code>computeIfAbsent</code> access on the underlying {@link LongConcurrentMap}
+ * with snowflake-like keys, compared to a boxed {@link ConcurrentHashMap}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class GuildLookupBenchmark {
+    @Param({"100", "100000"})
+    int guilds;
+
+    private long[] keys;
+    private final LongConcurrentMap<Object> primitive = new LongConcurrentMap<>();
+    private final ConcurrentHashMap<Long, Object> boxed = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setup() {
+        keys = new long[guilds];
+        for (int i = 0; i < guilds; i++) {
+            // snowflakes of guilds created over a few years
+            keys[i] = (ThreadLocalRandom.current().nextLong(1L << 40) << 22) | i;
+            primitive.put(keys[i], new Object());
+            boxed.put(keys[i], new Object());
+        }
+    }
+
+    private long key() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public Object longConcurrentMap() {
+        return primitive.computeIfAbsent(key(), id -> new Object());
+    }
+
+    @Benchmark
+    public Object concurrentHashMap() {
+        return boxed.computeIfAbsent(key(), id -> new Object());
+    }
+}
@@ -0,0 +1,35 @@
+package de.eldritch.anura.benchmark;
+
+import de.eldritch.anura.util.IDUtil;
+import de.eldritch.anura.util.text.Language;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IDUtil} with a single thread and with all available threads competing for the same generator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IDUtilBenchmark {
+    @Benchmark
+    @Threads(1)
+    public long single() {
+        return IDUtil.getNewID();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long contended() {
+        return IDUtil.getNewID();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long contendedInstance() {
+        return IDUtil.getNewID(Language.GERMAN);
+    }
+}
@@ -0,0 +1,145 @@
+package de.eldritch.anura.benchmark;
+
+import de.eldritch.anura.util.LongCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LongCache} as used for the recently used IDs of every guild, compared to the previous implementation that
+ * scanned the whole buffer for every lookup (<code>impl = scan</code>).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongCacheBenchmark {
+    @Param({"10", "1000"})
+    int capacity;
+
+    @Param({"hashed", "scan"})
+    String impl;
+
+    private Cache cache;
+    private long next;
+
+    @Setup
+    public void setup() {
+        cache = create(impl, capacity);
+        for (int i = 0; i < capacity; i++)
+            cache.put(i);
+        next = capacity;
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(next++);
+    }
+
+    @Benchmark
+    public boolean containsHit() {
+        return cache.contains(next - 1);
+    }
+
+    @Benchmark
+    public boolean containsMiss() {
+        return cache.contains(-1);
+    }
+
+    /* ---------- CONTENDED ---------- */
+
+    /**
+     * One cache shared by three threads checking IDs and one thread adding them, like concurrent meme requests of a
+     * single guild.
+     */
+    @State(Scope.Group)
+    public static class Shared {
+        @Param({"10", "1000"})
+        int capacity;
+
+        @Param({"hashed", "scan"})
+        String impl;
+
+        Cache cache;
+        long next;
+
+        @Setup
+        public void setup() {
+            cache = create(impl, capacity);
+            for (int i = 0; i < capacity; i++)
+                cache.put(i);
+            next = capacity;
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public boolean contendedContains(Shared shared) {
+        return shared.cache.contains(shared.next - 1);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void contendedPut(Shared shared) {
+        shared.cache.put(shared.next++);
+    }
+
+    /* ------------------------- */
+
+    interface Cache {
+        void put(long l);
+
+        boolean contains(long l);
+    }
+
+    static Cache create(String impl, int capacity) {
+        return switch (impl) {
+            case "hashed" -> {
+                LongCache cache = new LongCache(capacity);
+                yield new Cache() {
+                    @Override
+                    public void put(long l) {
+                        cache.put(l);
+                    }
+
+                    @Override
+                    public boolean contains(long l) {
+                        return cache.contains(l);
+                    }
+                };
+            }
+            case "scan" -> new ScanCache(capacity);
+            default -> throw new IllegalArgumentException("Unknown implementation: " + impl);
+        };
+    }
+
+    /**
+     * The ring buffer LongCache used to be: every lookup streams over the whole buffer.
+     */
+    static final class ScanCache implements Cache {
+        private final long[] arr;
+        private int pointer = 0;
+
+        ScanCache(int capacity) {
+            arr = new long[capacity];
+        }
+
+        @Override
+        public synchronized void put(long l) {
+            arr[pointer++] = l;
+
+            if (pointer >= arr.length)
+                pointer = 0;
+        }
+
+        @Override
+        public boolean contains(long l) {
+            return Arrays.stream(arr).anyMatch(value -> value == l);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.eldritch.anura.benchmark;
+
+import de.eldritch.anura.util.logging.SimpleFormatter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * {@link SimpleFormatter#format(LogRecord)} for a plain record and a record with a stack trace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleFormatterBenchmark {
+    private final SimpleFormatter formatter = new SimpleFormatter();
+
+    private LogRecord plain;
+    private LogRecord thrown;
+
+    @Setup
+    public void setup() {
+        plain = new LogRecord(Level.INFO, "[DE] Guild commands synchronized: 12 updated, 340 unchanged, 0 failed.");
+        plain.setLoggerName("ROOT");
+
+        thrown = new LogRecord(Level.WARNING, "[DataService] Unable to write guild configs. 3 are pending.");
+        thrown.setLoggerName("ROOT");
+        thrown.setThrown(new IllegalStateException("Pool is closed"));
+    }
+
+    @Benchmark
+    public String plain() {
+        return formatter.format(plain);
+    }
+
+    @Benchmark
+    public String withThrowable() {
+        return formatter.format(thrown);
+    }
+}
@@ -0,0 +1,37 @@
+package de.eldritch.anura.benchmark;
+
+import de.eldritch.anura.util.text.Language;
+import de.eldritch.anura.util.text.TextUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TextUtil#get(String, Language, String...)} with the bundled language files. {@link Language#KERL} does not
+ * define the keys itself and is resolved through its fallback chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextUtilBenchmark {
+    @Param({"ENGLISH", "KERL"})
+    Language language;
+
+    @Setup
+    public void setup() {
+        TextUtil.loadAll();
+    }
+
+    @Benchmark
+    public String plain() {
+        return TextUtil.get("module.invite.query.menu.placeholder", language).toString();
+    }
+
+    @Benchmark
+    public String formatted() {
+        return TextUtil.get("module.invite.query.time.slashCommandReply.success", language, "Europe/Berlin").toString();
+    }
+}
@@ -0,0 +1,30 @@
+package de.eldritch.anura.benchmark;
+
+import de.eldritch.anura.data.StaticData;
+import de.eldritch.anura.util.time.ZoneIdIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time zone filtering as done by the autocompletion of the <code>timezone</code> command, using the shared
+ * {@link ZoneIdIndex} and a typical list of frequently used zones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneSearchBenchmark {
+    @Param({"", "b", "ber", "america/new", "xyz"})
+    String query;
+
+    private final List<String> frequent = List.of("Europe/Berlin", "UTC", "Europe/London", "America/New_York", "Asia/Tokyo");
+
+    @Benchmark
+    public List<String> search() {
+        return StaticData.ZONE_INDEX.search(query, frequent);
+    }
+}
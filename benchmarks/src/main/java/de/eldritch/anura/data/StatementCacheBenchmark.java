@@ -0,0 +1,89 @@
+package de.eldritch.anura.data;
+
+import de.eldritch.anura.benchmark.BenchmarkRunner;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The {@link PreparedStatement} cache of {@link PooledConnection} compared to preparing every statement again
+ * (<code>mode = uncached</code>), which is what every query did before. Each operation is a single meme lookup by ID.
+ * <p>This benchmark needs a MySQL database, so it lives in the package of the pool and only runs if
+ * {@link BenchmarkRunner#DB_URL_ENV} is set (e.g. <code>jdbc:mysql://localhost:3306/anura_bench</code>). Server-side
+ * prepares are enabled like in {@link SQLConnector}. All data is kept in a temporary table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+    private static final String QUERY = "SELECT * FROM bench_memes WHERE id = ? LIMIT 1";
+    private static final int ROWS = 1000;
+
+    @Param({"cached", "uncached"})
+    String mode;
+
+    private ConnectionPool pool;
+    private PooledConnection connection;
+
+    @Setup
+    public void setup() throws SQLException {
+        String url = System.getenv(BenchmarkRunner.DB_URL_ENV);
+        if (url == null)
+            throw new IllegalStateException(BenchmarkRunner.DB_URL_ENV + " is not set");
+        url += (url.contains("?") ? "&" : "?") + "useServerPrepStmts=true";
+
+        pool = new ConnectionPool(Logger.getLogger("StatementCacheBenchmark"), url,
+                System.getenv(BenchmarkRunner.DB_USER_ENV), System.getenv(BenchmarkRunner.DB_PASSWORD_ENV), 1, 5000);
+        connection = pool.borrow();
+
+        Connection raw = connection.getConnection();
+        try (Statement statement = raw.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE bench_memes ( `id` BIGINT NOT NULL , `url` TEXT NOT NULL , `rating` INT NOT NULL DEFAULT 0 , PRIMARY KEY (`id`))");
+        }
+        try (PreparedStatement insert = raw.prepareStatement("INSERT INTO bench_memes (id, url) VALUES (?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "https://example.com/memes/" + i + ".png");
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        connection.close();
+        pool.close();
+    }
+
+    @Benchmark
+    public String lookup() throws SQLException {
+        long id = ThreadLocalRandom.current().nextInt(ROWS);
+
+        if (mode.equals("cached")) {
+            PreparedStatement statement = connection.prepare(QUERY);
+            return query(statement, id);
+        }
+
+        try (PreparedStatement statement = connection.getConnection().prepareStatement(QUERY)) {
+            return query(statement, id);
+        }
+    }
+
+    private static String query(PreparedStatement statement, long id) throws SQLException {
+        statement.setLong(1, id);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(2) : null;
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package de.eldritch.anura;
 
+import de.eldritch.anura.control.ControlInstance;
 import de.eldritch.anura.core.AnuraInstance;
 import de.eldritch.anura.data.DataService;
+import de.eldritch.anura.data.ZoneListFile;
+import de.eldritch.anura.util.logging.AsyncHandler;
 import de.eldritch.anura.util.logging.LogUtil;
+import de.eldritch.anura.util.logging.OverflowPolicy;
 import de.eldritch.anura.util.logging.SimpleFormatter;
+import de.eldritch.anura.util.metrics.Metrics;
+import de.eldritch.anura.util.metrics.MetricsServer;
+import de.eldritch.anura.util.text.TextUtil;
 import de.eldritch.anura.util.version.IllegalVersionException;
 import de.eldritch.anura.util.version.Version;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.NotDirectoryException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.StreamHandler;
 
@@ -26,9 +35,14 @@ public class Anura {
 
     private final File directory;
     private final Logger logger;
+    private final AsyncHandler logHandler;
+
+    // maximum amount of log records waiting to be written
+    private static final int LOG_BUFFER_SIZE = 8192;
 
     private final DataService dataService;
     private final InstanceManager instanceManager;
+    private final MetricsServer metricsServer;
 
     /**
      * Private constructor that is only ever used by the main method to initialize Anura.
@@ -69,8 +83,12 @@ public class Anura {
         /* ----- LOGGER ----- */
         SimpleFormatter formatter = new SimpleFormatter();
         logger = Logger.getLogger("ROOT");
-        logger.addHandler(new StreamHandler(System.out, formatter));
-        logger.addHandler(LogUtil.getFileHandler(formatter));
+        logHandler = new AsyncHandler(LOG_BUFFER_SIZE, OverflowPolicy.DROP_NEWEST,
+                new StreamHandler(System.out, formatter),
+                LogUtil.getFileHandler(formatter)
+        );
+        logger.addHandler(logHandler);
+        Metrics.derivedCounter("anura_log_dropped_total", "Log records dropped due to a full buffer.", logHandler::getDroppedCount);
 
 
         // construct control instance
@@ -79,8 +97,56 @@ public class Anura {
         // construct services
         this.dataService = new DataService();
 
+        // prepare static resources that are shared by all instances
+        ZoneListFile.warmUp();
+        TextUtil.loadAll();
+        try {
+            TextUtil.watch();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "External language directory is not watched.", e);
+        }
+
+        // expose metrics on localhost
+        this.metricsServer = this.startMetricsServer();
+
         // construct other instances
         this.instanceManager.init();
+
+        // stop all instances gracefully when the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (metricsServer != null)
+                metricsServer.close();
+            instanceManager.shutdown();
+            dataService.shutdown();
+            logHandler.close();
+        }, "Anura-Shutdown"));
+    }
+
+    /**
+     * Starts the {@link MetricsServer} on the port specified by the system property <code>anura.metrics.port</code>
+     * (default {@link MetricsServer#DEFAULT_PORT}). A negative port disables the server. Besides the Prometheus metrics
+     * at <code>/metrics</code> the {@link ControlInstance#getSummary() summary} is served at <code>/summary</code>.
+     * @return The started server or <code>null</code> if it is disabled or could not be started.
+     */
+    private MetricsServer startMetricsServer() {
+        int port;
+        try {
+            port = Integer.parseInt(System.getProperty("anura.metrics.port", String.valueOf(MetricsServer.DEFAULT_PORT)).trim());
+        } catch (NumberFormatException e) {
+            logger.log(Level.WARNING, "anura.metrics.port must be a number. Metrics are not exposed.");
+            return null;
+        }
+        if (port < 0) return null;
+
+        try {
+            MetricsServer server = new MetricsServer(port);
+            server.route("/summary", () -> instanceManager.getControlInstance().getSummary());
+            logger.log(Level.INFO, "Metrics are exposed at http://localhost:" + server.getPort() + "/metrics");
+            return server;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to start metrics server. Metrics are not exposed.", e);
+            return null;
+        }
     }
 
     /* ---------- MAIN ---------- */
@@ -125,6 +191,14 @@ public class Anura {
         return logger;
     }
 
+    /**
+     * Provides the {@link AsyncHandler} that writes all log records of this instance.
+     * @return Root log handler.
+     */
+    public @NotNull AsyncHandler getLogHandler() {
+        return logHandler;
+    }
+
     /**
      * Provides the {@link DataService} of Anura.
      * @return DataService
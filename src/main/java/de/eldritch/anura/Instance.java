@@ -5,18 +5,165 @@ import de.eldritch.anura.core.AnuraInstance;
 import de.eldritch.anura.util.logging.AnuraLogger;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
 /**
  * Represents a bot instance. This may be an {@link AnuraInstance} or a {@link ControlInstance}.
+ * <p>The thread of an instance runs through a fixed lifecycle: {@link Instance#onStartup()} is called, then the thread
+ * parks until {@link Instance#shutdown()} is called (or the thread is interrupted), after which all shutdown hooks and
+ * {@link Instance#onShutdown()} are executed. While parked the thread does not consume any CPU time.
+ * @see LifecycleState
  */
 public abstract class Instance extends Thread {
     private final InstanceManager instanceManager;
     private final AnuraLogger logger;
 
+    private final AtomicReference<LifecycleState> state = new AtomicReference<>(LifecycleState.STOPPED);
+    private final CountDownLatch startupLatch  = new CountDownLatch(1);
+    private final CountDownLatch shutdownLatch = new CountDownLatch(1);
+    private volatile long startupMillis = -1;
+    private final List<Runnable> shutdownHooks = new CopyOnWriteArrayList<>();
+
     public Instance(@NotNull InstanceManager instanceManager) {
         this.instanceManager = instanceManager;
         logger = new AnuraLogger(this);
     }
 
+    /* ---------- LIFECYCLE ---------- */
+
+    public enum LifecycleState {
+        /**
+         * {@link Instance#onStartup()} is running.
+         */
+        STARTING,
+        /**
+         * The instance has started and is waiting for shutdown.
+         */
+        RUNNING,
+        /**
+         * Shutdown hooks and {@link Instance#onShutdown()} are running.
+         */
+        STOPPING,
+        /**
+         * The instance is not running (either not yet started or already stopped).
+         */
+        STOPPED
+    }
+
+    @Override
+    public final void run() {
+        state.set(LifecycleState.STARTING);
+        getLogger().log(Level.INFO, "Thread has been started");
+
+        long start = System.nanoTime();
+        try {
+            this.onStartup();
+
+            startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            state.set(LifecycleState.RUNNING);
+            getLogger().log(Level.INFO, "Startup complete after " + startupMillis + "ms.");
+            startupLatch.countDown();
+
+            this.awaitShutdown();
+        } catch (Exception e) {
+            getLogger().log(Level.SEVERE, "Encountered an exception during startup. Shutting down...", e);
+        } finally {
+            // release waiting threads if startup has failed
+            startupLatch.countDown();
+        }
+
+        state.set(LifecycleState.STOPPING);
+
+        for (Runnable hook : shutdownHooks) {
+            try {
+                hook.run();
+            } catch (Exception e) {
+                getLogger().log(Level.WARNING, "Encountered an exception in a shutdown hook.", e);
+            }
+        }
+
+        try {
+            this.onShutdown();
+        } catch (Exception e) {
+            getLogger().log(Level.WARNING, "Encountered an exception during shutdown.", e);
+        }
+
+        state.set(LifecycleState.STOPPED);
+        getLogger().log(Level.INFO, "Thread has been stopped.");
+    }
+
+    /**
+     * Called by the instance thread once it is started. If this method throws an exception the instance shuts down
+     * immediately.
+     * @throws Exception if the instance could not be started.
+     */
+    protected void onStartup() throws Exception { }
+
+    /**
+     * Called by the instance thread after all shutdown hooks have been executed. This is also called if
+     * {@link Instance#onStartup()} has failed, so implementations should expect a partially initialized state.
+     */
+    protected void onShutdown() { }
+
+    /**
+     * Requests the instance to shut down. This method does not block, use {@link Thread#join()} to wait until the
+     * instance has stopped.
+     */
+    public void shutdown() {
+        shutdownLatch.countDown();
+    }
+
+    /**
+     * Registers a task that is executed when the instance shuts down, before {@link Instance#onShutdown()}.
+     * @param hook Task to execute.
+     */
+    public void addShutdownHook(@NotNull Runnable hook) {
+        shutdownHooks.add(hook);
+    }
+
+    /**
+     * Waits until {@link Instance#onStartup()} has finished or failed.
+     * @param timeout Maximum time to wait.
+     * @param unit Unit of the timeout.
+     * @return true if the instance is <code>RUNNING</code>, false if startup has failed or did not finish in time.
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public boolean awaitStartup(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        return startupLatch.await(timeout, unit) && state.get() == LifecycleState.RUNNING;
+    }
+
+    /**
+     * Provides the time {@link Instance#onStartup()} took to complete.
+     * @return Startup time in milliseconds or <code>-1</code> if startup has not (successfully) finished yet.
+     */
+    public long getStartupMillis() {
+        return startupMillis;
+    }
+
+    /**
+     * Provides the current {@link LifecycleState} of this instance.
+     * @return Lifecycle state.
+     */
+    public @NotNull LifecycleState getLifecycleState() {
+        return state.get();
+    }
+
+    private void awaitShutdown() {
+        try {
+            shutdownLatch.await();
+        } catch (InterruptedException e) {
+            // an interruption is treated as a shutdown request
+            getLogger().log(Level.INFO, "Thread has been interrupted.");
+        }
+    }
+
+    /* ------------------------- */
+
     /**
      * Provides the name of the instance. The formatting may vary per implementation.
      * @return Instance name.
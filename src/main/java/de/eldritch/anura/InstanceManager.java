@@ -6,7 +6,11 @@ import de.eldritch.anura.core.AnuraInstanceBuilder;
 import de.eldritch.anura.util.text.Language;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -16,7 +20,11 @@ import java.util.logging.Level;
  * @see AnuraInstance
  */
 public class InstanceManager {
-    private final HashMap<InstanceKey, Instance> instances = new HashMap<>();
+    // time to wait for an instance to start / stop before giving up
+    private static final long STARTUP_TIMEOUT  = TimeUnit.MINUTES.toMillis(2);
+    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private final ConcurrentHashMap<InstanceKey, Instance> instances = new ConcurrentHashMap<>();
 
     private enum SpecialKey implements InstanceKey { CONTROL }
 
@@ -28,33 +36,155 @@ public class InstanceManager {
     }
 
     /**
-     * Determines each {@link AnuraInstance} that should be created and puts them into the instances map.
+     * Determines each {@link AnuraInstance} that should be created, puts them into the instances map and starts them.
+     * <p>All instances start in parallel on their own threads, this method then waits for them until a single shared
+     * deadline ({@link InstanceManager#STARTUP_TIMEOUT} after the first instance has been launched). An instance that
+     * fails or does not finish its startup in time is shut down without affecting the others. Once all instances are
+     * done a startup report is logged.
      */
     void init() {
+        long start = System.currentTimeMillis();
+
         // implement an instance for each language
+        Map<Language, AnuraInstance> launched = new LinkedHashMap<>();
         for (Language value : Language.values()) {
             // only implement instance if the language is flagged for implementation
             if (value.shouldImplement()) {
-                this.enableInstance(value);
+                AnuraInstance instance = this.enableInstance(value);
+                if (instance != null)
+                    launched.put(value, instance);
+            }
+        }
+
+        StringBuilder report = new StringBuilder("Startup report:");
+        for (Map.Entry<Language, AnuraInstance> entry : launched.entrySet()) {
+            Language language = entry.getKey();
+            AnuraInstance instance = entry.getValue();
+
+            boolean running;
+            try {
+                running = instance.awaitStartup(Math.max(0, start + STARTUP_TIMEOUT - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            report.append("\n    ").append(language.code()).append(": ");
+            if (running) {
+                report.append("RUNNING after ").append(instance.getStartupMillis()).append("ms");
+                continue;
+            }
+
+            // read the state once, the instance may still finish its startup right now
+            Instance.LifecycleState state = instance.getLifecycleState();
+            switch (state) {
+                case RUNNING -> report.append("RUNNING after ").append(instance.getStartupMillis()).append("ms (late)");
+                case STARTING -> {
+                    report.append("TIMED OUT");
+                    // abort blocking startup calls (e.g. JDA#awaitReady)
+                    instance.interrupt();
+                    instances.remove(language, instance);
+                    this.stop(instance);
+                }
+                default -> {
+                    report.append("FAILED");
+                    // the thread may still be running its shutdown hooks
+                    instances.remove(language, instance);
+                    this.stop(instance);
+                }
             }
         }
+        report.append("\n    Total: ").append(System.currentTimeMillis() - start).append("ms");
+
+        Anura.singleton.getLogger().log(Level.INFO, report.toString());
     }
 
     /**
-     * Enabled a single {@link AnuraInstance} based on a provided {@link Language}. If the instance fails to initialize
-     * the exception is logged as a <code>SEVERE</code> record on the root logger.
+     * Enabled a single {@link AnuraInstance} based on a provided {@link Language} and starts its thread. If the instance
+     * fails to initialize the exception is logged as a <code>SEVERE</code> record on the root logger.
      * @param language Language as key.
+     * @return The started instance or <code>null</code> if it could not be built.
      */
-    private void enableInstance(@NotNull Language language) {
+    private AnuraInstance enableInstance(@NotNull Language language) {
         try {
-            instances.put(language,
-                    new AnuraInstanceBuilder(true)
-                            .setInstanceManager(this)
-                            .setInstanceKey(language)
-                            .setToken(null)
-                            .build());
+            AnuraInstance instance = new AnuraInstanceBuilder(true)
+                    .setInstanceManager(this)
+                    .setInstanceKey(language)
+                    .setToken(null)
+                    .build();
+
+            instances.put(language, instance);
+            instance.start();
+            return instance;
         } catch (Exception e) {
             Anura.singleton.getLogger().log(Level.SEVERE, "Encountered an exception while attempting to enable Instance '" + language.code() + "'.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Shuts down a single {@link Instance} and waits until it has stopped.
+     * @param key Key of the instance.
+     * @return true if the instance has stopped, false if it does not exist or did not stop in time.
+     */
+    public boolean shutdownInstance(@NotNull InstanceKey key) {
+        Instance instance = instances.remove(key);
+        if (instance == null)
+            return false;
+
+        return this.stop(instance);
+    }
+
+    /**
+     * Restarts a single {@link AnuraInstance}. As threads can not be started twice the old instance is shut down and
+     * replaced by a newly built one.
+     * @param language Language of the instance.
+     * @return true if the old instance has stopped in time and a new one has been started.
+     */
+    public boolean restartInstance(@NotNull Language language) {
+        Instance old = instances.remove(language);
+        if (old != null && !this.stop(old)) {
+            Anura.singleton.getLogger().log(Level.WARNING, "Instance '" + language.code() + "' did not stop in time and will not be restarted.");
+            return false;
+        }
+
+        this.enableInstance(language);
+        return instances.containsKey(language);
+    }
+
+    /**
+     * Shuts down all instances and waits until they have stopped. Shutdown is requested from all instances at once so
+     * they can stop in parallel.
+     */
+    public void shutdown() {
+        instances.values().forEach(Instance::shutdown);
+        instances.values().forEach(this::stop);
+        instances.clear();
+    }
+
+    /**
+     * Provides all current instances, including the {@link ControlInstance}.
+     * @return Immutable list of instances.
+     */
+    public @NotNull List<Instance> getInstances() {
+        return List.copyOf(instances.values());
+    }
+
+    /**
+     * Provides the {@link ControlInstance}.
+     * @return The control instance.
+     */
+    public @NotNull ControlInstance getControlInstance() {
+        return (ControlInstance) instances.get(SpecialKey.CONTROL);
+    }
+
+    private boolean stop(@NotNull Instance instance) {
+        instance.shutdown();
+        try {
+            instance.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        return !instance.isAlive();
     }
 }
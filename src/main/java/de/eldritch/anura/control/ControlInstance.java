@@ -1,9 +1,26 @@
 package de.eldritch.anura.control;
 
+import de.eldritch.anura.Anura;
 import de.eldritch.anura.Instance;
 import de.eldritch.anura.InstanceManager;
+import de.eldritch.anura.data.DataService;
+import de.eldritch.anura.data.MemeCacheStats;
+import de.eldritch.anura.data.PoolStats;
+import de.eldritch.anura.util.metrics.LatencyHistogram;
+import de.eldritch.anura.util.metrics.Metric;
+import de.eldritch.anura.util.metrics.Metrics;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static de.eldritch.anura.util.metrics.LatencyHistogram.Snapshot.format;
+
 /**
  * The controlling instance of Anura. This class should only be initialized once.
  * <p>This {@link Instance} is responsible for moderation and administrating all other instances or rather to provide a
@@ -11,6 +28,9 @@ import org.jetbrains.annotations.NotNull;
  * the bot from functioning properly.
  */
 public class ControlInstance extends Instance {
+    // amount of timers listed in the summary
+    private static final int SUMMARY_TIMERS = 10;
+
     public ControlInstance(@NotNull InstanceManager instanceManager) {
         super(instanceManager);
     }
@@ -19,4 +39,91 @@ public class ControlInstance extends Instance {
     public @NotNull String getFullName() {
         return "CONTROL";
     }
+
+    /* ---------- STATISTICS ---------- */
+
+    /**
+     * Builds a human-readable summary of the current state and the collected {@link Metrics}: all instances, the time
+     * spent handling interactions per instance, the timers with the most total time and the database state.
+     * @return Multi-line summary.
+     */
+    public @NotNull String getSummary() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Anura ").append(Anura.VERSION)
+                .append(" - up ").append(Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime()).withNanos(0).toString().substring(2).toLowerCase(Locale.ROOT))
+                .append('\n');
+
+        // instances
+        builder.append("\nInstances:\n");
+        for (Instance instance : getInstanceManager().getInstances())
+            builder.append(String.format(Locale.ROOT, "  %-12s %-8s startup %s%n", instance.getFullName(), instance.getLifecycleState(),
+                    instance.getStartupMillis() < 0 ? "-" : instance.getStartupMillis() + "ms"));
+
+        Map<Metrics.MetricKey, LatencyHistogram.Snapshot> timers = Metrics.snapshotTimers();
+
+        // interaction time per instance
+        TreeMap<String, long[]> perInstance = new TreeMap<>();
+        timers.forEach((key, snapshot) -> {
+            if (key.instance() == null || key.metric() == Metric.MODULE_ENABLE) return;
+            long[] total = perInstance.computeIfAbsent(key.instance(), k -> new long[2]);
+            total[0] += snapshot.count();
+            total[1] += snapshot.sum();
+        });
+        builder.append("\nInteractions per instance:\n");
+        if (perInstance.isEmpty())
+            builder.append("  -\n");
+        perInstance.forEach((instance, total) -> builder.append(String.format(Locale.ROOT, "  %-4s %8d handled  %10s total  %10s avg%n",
+                instance, total[0], format(total[1]), format(total[0] == 0 ? 0 : total[1] / total[0]))));
+
+        // timers with the most total time
+        List<Map.Entry<Metrics.MetricKey, LatencyHistogram.Snapshot>> entries = new ArrayList<>(timers.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        builder.append("\nTop timers by total time:\n");
+        if (entries.isEmpty())
+            builder.append("  -\n");
+        for (int i = 0; i < entries.size() && i < SUMMARY_TIMERS; i++) {
+            Metrics.MetricKey key = entries.get(i).getKey();
+            LatencyHistogram.Snapshot snapshot = entries.get(i).getValue();
+            builder.append(String.format(Locale.ROOT, "  %-4s %-14s %-20s %8d  p50 %9s  p99 %9s  max %9s%n",
+                    key.instance() != null ? key.instance() : "*",
+                    key.metric().name().toLowerCase(Locale.ROOT),
+                    key.value(),
+                    snapshot.count(),
+                    format(snapshot.quantile(0.5)),
+                    format(snapshot.quantile(0.99)),
+                    format(snapshot.max())));
+        }
+
+        // database
+        DataService dataService = Anura.singleton != null ? Anura.singleton.getDataService() : null;
+        if (dataService != null) {
+            PoolStats pool = dataService.getPoolStats();
+            MemeCacheStats cache = dataService.getMemeCacheStats();
+
+            builder.append("\nDatabase:\n");
+            builder.append(String.format(Locale.ROOT, "  pool        %d/%d active, %d idle, wait avg %s / max %s, %d timeouts%n",
+                    pool.active(), pool.capacity(), pool.idle(), format(pool.avgWaitNanos()), format(pool.maxWaitNanos()), pool.timeouts()));
+            builder.append(String.format(Locale.ROOT, "  async       %d queued, %d timeouts, %d rejected%n",
+                    dataService.async().getQueueSize(), dataService.async().getTimeoutCount(), dataService.async().getRejectionCount()));
+            builder.append(String.format(Locale.ROOT, "  meme cache  %d entries, %.1f%% hit rate, %d evictions%n",
+                    cache.size(), cache.hitRate() * 100, cache.evictions()));
+            builder.append(String.format(Locale.ROOT, "  guilds      %d configs pending%n", dataService.getPendingGuildConfigs()));
+        }
+
+        // counters with errors
+        Map<Metrics.MetricKey, Long> counters = Metrics.snapshotCounters();
+        StringBuilder errors = new StringBuilder();
+        counters.forEach((key, value) -> {
+            if (value > 0)
+                errors.append(String.format(Locale.ROOT, "  %-4s %-20s %-20s %d%n",
+                        key.instance() != null ? key.instance() : "*", key.metric().name().toLowerCase(Locale.ROOT), key.value(), value));
+        });
+        long dropped = Anura.singleton != null ? Anura.singleton.getLogHandler().getDroppedCount() : 0;
+        if (dropped > 0)
+            errors.append(String.format(Locale.ROOT, "  *    log records dropped  %d%n", dropped));
+        if (!errors.isEmpty())
+            builder.append("\nErrors:\n").append(errors);
+
+        return builder.toString();
+    }
 }
@@ -3,21 +3,21 @@ package de.eldritch.anura.core;
 import de.eldritch.anura.Instance;
 import de.eldritch.anura.InstanceKey;
 import de.eldritch.anura.InstanceManager;
+import de.eldritch.anura.core.command.CommandSynchronizer;
 import de.eldritch.anura.core.guild.GuildContainer;
 import de.eldritch.anura.core.guild.GuildManager;
 import de.eldritch.anura.core.listener.AutoCompleteListener;
 import de.eldritch.anura.core.listener.CommandListener;
+import de.eldritch.anura.core.listener.InteractionRouter;
 import de.eldritch.anura.core.module.AnuraModule;
 import de.eldritch.anura.core.module.ModuleManager;
 import de.eldritch.anura.util.text.Language;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
-import net.dv8tion.jda.api.interactions.commands.Command;
-import net.dv8tion.jda.api.interactions.commands.OptionType;
 import org.jetbrains.annotations.NotNull;
 
 import javax.security.auth.login.LoginException;
-import java.util.List;
+import java.sql.SQLException;
 import java.util.logging.Level;
 
 /**
@@ -27,13 +27,15 @@ public class AnuraInstance extends Instance {
     private final InstanceKey instanceKey;
     private final Language language;
 
-    // responsible manager
-    private GuildManager guildManager;
-    private ModuleManager moduleManager;
+    // responsible manager (read by JDA event threads)
+    private volatile GuildManager guildManager;
+    private volatile ModuleManager moduleManager;
+    private CommandSynchronizer commandSynchronizer;
+    private InteractionRouter interactionRouter;
 
     // this builder can be reused for each thread interruption
     private final JDABuilder builder;
-    private JDA jda;
+    private volatile JDA jda;
 
     AnuraInstance(@NotNull InstanceManager instanceManager, @NotNull InstanceKey instanceKey, @NotNull JDABuilder builder) throws IllegalArgumentException {
         super(instanceManager);
@@ -48,19 +50,15 @@ public class AnuraInstance extends Instance {
         this.builder = builder;
     }
 
-    /* ---------- THREAD ---------- */
+    /* ---------- LIFECYCLE ---------- */
 
     @Override
-    public void run() {
-        getLogger().log(Level.INFO, "Thread has been started");
-
+    protected void onStartup() throws LoginException, InterruptedException {
         // build jda
-        try {
-            this.jda = builder.build();
-            this.jda.awaitReady();
-        } catch (LoginException | IllegalArgumentException | InterruptedException e) {
-            getLogger().log(Level.SEVERE, "Unable to build JDA!", e);
-        }
+        this.jda = builder.build();
+        this.jda.awaitReady();
+
+        this.commandSynchronizer = new CommandSynchronizer(this);
 
         getLogger().log(Level.INFO, "Checking global commands...");
         this.checkGlobalCommands();
@@ -71,6 +69,13 @@ public class AnuraInstance extends Instance {
         this.guildManager  = new GuildManager(this);
         this.moduleManager = new ModuleManager(this);
 
+        getLogger().log(Level.INFO, "Loading guilds...");
+        try {
+            getLogger().log(Level.INFO, guildManager.load() + " guilds loaded.");
+        } catch (SQLException e) {
+            getLogger().log(Level.WARNING, "Unable to load guilds. Stored guild data is not available.", e);
+        }
+
         // register modules
         getLogger().log(Level.INFO, "Registering modules...");
         ModuleManager.getClasses().forEach(moduleClass -> moduleManager.registerModule(moduleClass));
@@ -81,66 +86,70 @@ public class AnuraInstance extends Instance {
         this.moduleManager.getRegisteredModules().forEach(anuraModule -> anuraModule.setEnabled(true));
         getLogger().log(Level.INFO, moduleManager.countEnabled() + " modules enabled.");
 
+        getLogger().log(Level.INFO, "Checking guild commands...");
+        this.checkGuildCommands();
+    }
 
-        /* --------------- --------------- --------------- */
-
-        // noinspection StatementWithEmptyBody
-        while (!isInterrupted() && isAlive()) { /* WAIT FOR INTERRUPTION */ }
-
-        /* --------------- --------------- --------------- */
-
-
+    @Override
+    protected void onShutdown() {
         // disable modules
-        getLogger().log(Level.INFO, "Disabling modules... (" + moduleManager.countEnabled() + ")");
-        moduleManager.getRegisteredModules().forEach(anuraModule -> anuraModule.setEnabled(false));
-        getLogger().log(Level.INFO, "All modules disabled.");
+        if (moduleManager != null) {
+            getLogger().log(Level.INFO, "Disabling modules... (" + moduleManager.countEnabled() + ")");
+            moduleManager.getRegisteredModules().forEach(anuraModule -> anuraModule.setEnabled(false));
+            getLogger().log(Level.INFO, "All modules disabled.");
+        }
 
         // shutdown JDA
-        jda.shutdown();
-        getLogger().log(Level.INFO, "JDA has been shut down");
+        if (jda != null) {
+            jda.shutdown();
+            getLogger().log(Level.INFO, "JDA has been shut down");
+        }
 
         this.guildManager  = null;
         this.moduleManager = null;
-
-        getLogger().log(Level.INFO, "Thread has been interrupted.");
     }
 
     /* ---------- START CHECKS ---------- */
 
     private void checkGlobalCommands() {
-        List<Command> commands    = getJDA().retrieveCommands().complete();
-        List<String> commandNames = commands.stream().map(command -> command.getName().toLowerCase()).toList();
-
-        if (!commandNames.contains("timezone")) {
-            getLogger().log(Level.INFO, "Command 'timezone' is missing. Creating...");
-            getJDA().upsertCommand("timezone", "Set your servers timezone.")
-                    .addOption(OptionType.STRING, "TZDB-code", "TZDB-Format (\"Europe/Berlin\", \"America/New_York\")", true, true)
-                    .queue(
-                            command   -> getLogger().log(Level.INFO, "Command 'timezone' created with id " + command.getId()),
-                            throwable -> getLogger().log(Level.WARNING, "Command 'timezone' could not be created", throwable)
-                    );
-        }
+        commandSynchronizer.syncGlobal().whenComplete((updated, throwable) -> {
+            if (throwable != null)
+                getLogger().log(Level.WARNING, "Global commands could not be synchronized", throwable);
+            else
+                getLogger().log(Level.INFO, updated ? "Global commands have been overwritten." : "Global commands are up-to-date.");
+        });
+    }
 
-        if (!commandNames.contains("timezones")) {
-            getLogger().log(Level.INFO, "Command 'timezones' is missing. Creating...");
-            getJDA().upsertCommand("timezones", "Get a list of all available timezones")
-                    .queue(command -> {
-                        getLogger().log(Level.INFO, "Command 'timezones' created with id " + command.getId());
-                    }, throwable -> {
-                        getLogger().log(Level.WARNING, "Command 'timezones' could not be created", throwable);
-                    });
-        }
+    private void checkGuildCommands() {
+        commandSynchronizer.syncGuilds(getJDA().getGuilds()).whenComplete((report, throwable) -> {
+            if (throwable != null)
+                getLogger().log(Level.WARNING, "Guild commands could not be synchronized", throwable);
+            else
+                getLogger().log(Level.INFO, "Guild commands synchronized: " + report.updated() + " updated, "
+                        + report.unchanged() + " unchanged, " + report.failed() + " failed.");
+        });
     }
 
     private void checkGlobalListeners() {
         getJDA().addEventListener(new CommandListener(this));
         getJDA().addEventListener(new AutoCompleteListener(this));
+
+        this.interactionRouter = new InteractionRouter(this);
+        getJDA().addEventListener(interactionRouter);
     }
 
     /* ---------- RUNTIME CHECKS ---------- */
 
-    public synchronized boolean checkGuildAvailable(long snowflake) {
-        return getGuildManager().getContainer(snowflake).getStatus() == GuildContainer.Status.READY;
+    /**
+     * Checks whether a guild is available for interactions. This is called at the start of every interaction event and
+     * does not lock, so events of different guilds are handled in parallel.
+     * @param snowflake Snowflake ID of the guild.
+     * @return true if the guild is <code>READY</code>, false if it is not or the instance is not running.
+     * @see GuildContainer#isAvailable()
+     */
+    public boolean checkGuildAvailable(long snowflake) {
+        GuildManager manager = this.guildManager;
+        return manager != null && manager.isAvailable(snowflake);
     }
 
     /* ------------------------- */
@@ -171,4 +180,12 @@ public class AnuraInstance extends Instance {
     public ModuleManager getModuleManager() {
         return moduleManager;
     }
+
+    public CommandSynchronizer getCommandSynchronizer() {
+        return commandSynchronizer;
+    }
+
+    public InteractionRouter getInteractionRouter() {
+        return interactionRouter;
+    }
 }
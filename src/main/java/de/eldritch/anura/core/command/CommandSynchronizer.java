@@ -0,0 +1,181 @@
+package de.eldritch.anura.core.command;
+
+import de.eldritch.anura.core.AnuraInstance;
+import de.eldritch.anura.core.guild.GuildContainer;
+import de.eldritch.anura.core.module.AnuraModule;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Keeps the global and per-guild {@link Command Commands} of an {@link AnuraInstance} in sync with Discord.
+ * <p>The desired state is built from the global command definitions and the guild commands of all enabled
+ * {@link AnuraModule AnuraModules}. It is compared to the commands Discord currently knows and only if they differ the
+ * whole list is replaced with a single bulk overwrite. Guilds are processed concurrently, but only a limited amount at
+ * a time so the JDA requester (which handles the actual rate limits) is not flooded with thousands of requests at once.
+ */
+public class CommandSynchronizer {
+    // maximum amount of guilds that are synchronized at the same time
+    private static final int MAX_CONCURRENT_GUILDS = 8;
+
+    private final AnuraInstance instance;
+
+    public CommandSynchronizer(@NotNull AnuraInstance instance) {
+        this.instance = instance;
+    }
+
+    /* ---------- DESIRED STATE ---------- */
+
+    /**
+     * Provides the commands that should be registered globally.
+     * @return List of global commands.
+     */
+    public @NotNull List<CommandData> getGlobalCommands() {
+        return List.of(
+                Commands.slash("timezone", "Set your servers timezone.")
+                        .addOption(OptionType.STRING, "tzdb-code", "TZDB-Format (\"Europe/Berlin\", \"America/New_York\")", true, true),
+                Commands.slash("timezones", "Get a list of all available timezones")
+        );
+    }
+
+    /**
+     * Provides the commands that should be registered on a guild. These are collected from all modules that are enabled
+     * and not disabled on that guild.
+     * @param guild The guild.
+     * @return List of guild commands.
+     * @see AnuraModule#getGuildCommands(Guild)
+     */
+    public @NotNull List<CommandData> getGuildCommands(@NotNull Guild guild) {
+        GuildContainer container = instance.getGuildManager().getContainer(guild.getIdLong());
+
+        List<CommandData> commands = new ArrayList<>();
+        for (AnuraModule module : instance.getModuleManager().getRegisteredModules())
+            if (module.isEnabled() && container.isEnabled(module))
+                commands.addAll(module.getGuildCommands(guild));
+        return commands;
+    }
+
+    /* ---------- SYNC ---------- */
+
+    /**
+     * Synchronizes the global commands.
+     * @return Future that completes with <code>true</code> if the commands had to be overwritten.
+     */
+    public @NotNull CompletableFuture<Boolean> syncGlobal() {
+        return sync(() -> instance.getJDA().retrieveCommands(), () -> instance.getJDA().updateCommands(), getGlobalCommands());
+    }
+
+    /**
+     * Synchronizes the commands of a single guild.
+     * @param guild The guild.
+     * @return Future that completes with <code>true</code> if the commands had to be overwritten.
+     */
+    public @NotNull CompletableFuture<Boolean> syncGuild(@NotNull Guild guild) {
+        return sync(guild::retrieveCommands, guild::updateCommands, getGuildCommands(guild));
+    }
+
+    /**
+     * Synchronizes the commands of multiple guilds. At most {@link CommandSynchronizer#MAX_CONCURRENT_GUILDS} guilds
+     * are processed at the same time; failures are logged and counted but do not stop the other guilds.
+     * @param guilds The guilds.
+     * @return Future that completes with a summary once all guilds have been processed.
+     */
+    public @NotNull CompletableFuture<Report> syncGuilds(@NotNull Collection<Guild> guilds) {
+        ConcurrentLinkedQueue<Guild> queue = new ConcurrentLinkedQueue<>(guilds);
+        Counter counter = new Counter();
+
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(MAX_CONCURRENT_GUILDS, guilds.size())];
+        for (int i = 0; i < workers.length; i++)
+            workers[i] = work(queue, counter);
+
+        return CompletableFuture.allOf(workers).thenApply(v -> counter.toReport());
+    }
+
+    /* ------------------------- */
+
+    private @NotNull CompletableFuture<Void> work(@NotNull Queue<Guild> queue, @NotNull Counter counter) {
+        Guild guild = queue.poll();
+        if (guild == null)
+            return CompletableFuture.completedFuture(null);
+
+        return syncGuild(guild)
+                .handle((updated, throwable) -> {
+                    if (throwable != null) {
+                        counter.failed.incrementAndGet();
+                        instance.getLogger().log(Level.WARNING, "Could not synchronize commands of guild " + guild.getId() + ".", throwable);
+                    } else if (updated) {
+                        counter.updated.incrementAndGet();
+                    } else {
+                        counter.unchanged.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(v -> work(queue, counter));
+    }
+
+    private static @NotNull CompletableFuture<Boolean> sync(@NotNull Supplier<RestAction<List<Command>>> retrieve, @NotNull Supplier<CommandListUpdateAction> update, @NotNull List<CommandData> desired) {
+        return retrieve.get().submit().thenCompose(existing -> {
+            if (!differs(existing, desired))
+                return CompletableFuture.completedFuture(false);
+
+            return update.get().addCommands(desired).submit().thenApply(commands -> true);
+        });
+    }
+
+    /**
+     * Compares the existing commands with the desired state. Both sides are serialized the same way, so any difference
+     * in name, description, options or permissions is detected.
+     */
+    private static boolean differs(@NotNull List<Command> existing, @NotNull List<CommandData> desired) {
+        if (existing.size() != desired.size())
+            return true;
+
+        Map<String, Map<String, Object>> desiredMap = new HashMap<>();
+        for (CommandData data : desired)
+            desiredMap.put(data.getName(), normalize(data));
+
+        for (Command command : existing)
+            if (!normalize(CommandData.fromCommand(command)).equals(desiredMap.get(command.getName())))
+                return true;
+
+        return false;
+    }
+
+    private static @NotNull Map<String, Object> normalize(@NotNull CommandData data) {
+        // round trip through JSON to get plain maps and lists that can be compared with equals()
+        return DataObject.fromJson(data.toData().toJson()).toMap();
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Summary of a synchronization of multiple guilds.
+     * @param updated Guilds whose commands have been overwritten.
+     * @param unchanged Guilds whose commands were already up-to-date.
+     * @param failed Guilds that could not be synchronized.
+     */
+    public record Report(int updated, int unchanged, int failed) { }
+
+    private static final class Counter {
+        final AtomicInteger updated   = new AtomicInteger();
+        final AtomicInteger unchanged = new AtomicInteger();
+        final AtomicInteger failed    = new AtomicInteger();
+
+        Report toReport() {
+            return new Report(updated.get(), unchanged.get(), failed.get());
+        }
+    }
+}
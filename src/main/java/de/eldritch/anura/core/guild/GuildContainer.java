@@ -1,61 +1,137 @@
 package de.eldritch.anura.core.guild;
 
 import de.eldritch.anura.core.AnuraInstance;
+import de.eldritch.anura.core.module.AnuraModule;
+import de.eldritch.anura.core.module.ModuleMask;
+import de.eldritch.anura.Anura;
 import de.eldritch.anura.data.DataService;
+import de.eldritch.anura.data.ShuffleBag;
+import de.eldritch.anura.data.entities.GuildConfig;
 import de.eldritch.anura.util.LongCache;
 import net.dv8tion.jda.api.entities.Guild;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.DateTimeException;
 import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
 
 /**
  * Stores information on a single {@link Guild} for an {@link AnuraInstance}.
  * The guild is only stored as its snowflake ID to prevent issues with caching.
  */
 public class GuildContainer {
-    // specifies the size of the ID cache
-    private static final int LONG_CACHE_CAPACITY = 10;
+    // specifies the size of the ID cache (memes that are not repeated within this many posts)
+    private static final int LONG_CACHE_CAPACITY = 256;
 
     // responsible manager
     private final GuildManager manager;
     // snowflake ID of the guild
     private final long snowflake;
 
-    private Status status = Status.UNKNOWN;
+    // read on every interaction, hence atomic instead of guarded by a lock
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.UNKNOWN);
 
     private final LongCache recentIDs;
+    // no-repeat meme order of this guild
+    private final ShuffleBag shuffleBag;
     // TZDB timezone ID of the guild
-    private ZoneId timeZone;
+    private volatile ZoneId timeZone;
+    // enabled modules (read on every event)
+    private volatile long modules = ModuleMask.ALL;
 
     /**
-     * Package-private constructor - called by {@link GuildManager#getContainer(long)}.
+     * Package-private constructor - called by {@link GuildManager#getContainer(long)} and {@link GuildManager#load()}.
      * @param manager Responsible {@link GuildManager}.
      * @param snowflake Snowflake ID of the guild.
+     * @param config Stored config of the guild or <code>null</code> if there is none.
      */
-    GuildContainer(@NotNull GuildManager manager, long snowflake) {
+    GuildContainer(@NotNull GuildManager manager, long snowflake, @Nullable GuildConfig config) {
         this.manager = manager;
         this.snowflake = snowflake;
 
-        this.recentIDs = new LongCache(LONG_CACHE_CAPACITY);
+        this.recentIDs  = new LongCache(LONG_CACHE_CAPACITY);
+        this.shuffleBag = new ShuffleBag();
 
-        this.retrievePermanentData();
+        this.retrievePermanentData(config);
         this.checkStatus();
     }
 
     /**
-     * Query the {@link DataService} for data on the guild that has already been stored (e.g. from before a restart).
-     * @see GuildContainer#GuildContainer(GuildManager, long)
+     * Applies data on the guild that has already been stored (e.g. from before a restart). Stored configs are not
+     * queried per guild but loaded in bulk by {@link GuildManager#load()} when the instance starts.
+     * @param config Stored config or <code>null</code> if the guild has not been set up yet.
+     * @see GuildContainer#GuildContainer(GuildManager, long, GuildConfig)
      */
-    private void retrievePermanentData() {
-        // TODO
+    private void retrievePermanentData(@Nullable GuildConfig config) {
+        if (config == null) return;
+
+        this.modules = ModuleMask.fromData(config.modules());
+        try {
+            this.timeZone = ZoneId.of(config.timeZone());
+        } catch (DateTimeException e) {
+            manager.getInstance().getLogger().warning("Guild " + snowflake + " has an illegal stored time zone: " + config.timeZone());
+        }
+    }
+
+    /**
+     * Applies a stored config to a container that has been created before the stored configs were loaded (e.g. by an
+     * event that arrived during startup). Data that has already been set up since then is newer and kept.
+     * @param config Stored config of the guild.
+     * @see GuildManager#load()
+     */
+    void mergeStoredConfig(@NotNull GuildConfig config) {
+        if (timeZone != null) return;
+
+        this.retrievePermanentData(config);
+        this.checkStatus();
     }
 
     /**
-     * Checks all currently available data for this guild and determines the {@link Status}.
-     * @see GuildContainer#GuildContainer(GuildManager, long)
+     * Checks all currently available data for this guild and determines the {@link Status}. A guild the bot is not a
+     * member of is <code>FOREIGN</code>, a guild without a time zone has not finished the setup and is
+     * <code>PENDING</code>, any other guild is <code>READY</code>.
+     * <p>The status is only changed if the transition is legal (see {@link Status#canTransitionTo(Status)}), otherwise
+     * it is left for an explicit change. A <code>BLOCKED</code> guild is never unblocked by this check.
+     * @see GuildContainer#GuildContainer(GuildManager, long, GuildConfig)
      */
     private void checkStatus() {
-        // TODO
+        Status status;
+        try {
+            if (manager.getInstance().getJDA().getGuildById(snowflake) == null)
+                status = Status.FOREIGN;
+            else
+                status = timeZone == null ? Status.PENDING : Status.READY;
+        } catch (IllegalStateException e) {
+            // instance is not running
+            return;
+        }
+
+        Status current;
+        do {
+            current = this.status.get();
+            if (!current.canTransitionTo(status) || (current == Status.BLOCKED && status != Status.FOREIGN))
+                return;
+        } while (!this.status.compareAndSet(current, status));
+    }
+
+    /**
+     * Queues the current data of this guild to be stored. This does not block, the data is written in the background.
+     * Nothing is stored as long as the guild has no time zone, as it has not been set up.
+     * @see DataService#saveGuildConfig(GuildConfig)
+     */
+    private void storePermanentData() {
+        ZoneId timeZone = this.timeZone;
+        if (timeZone == null) return;
+
+        Anura.singleton.getDataService().saveGuildConfig(new GuildConfig(
+                snowflake,
+                manager.getInstance().getJDA().getSelfUser().getIdLong(),
+                manager.getInstance().getLanguage().code(),
+                ModuleMask.toData(modules),
+                timeZone.getId()
+        ));
     }
 
     /* ------------------------- */
@@ -82,16 +158,68 @@ public class GuildContainer {
          * The guild has been blocked by moderation or the bot does not have sufficient permissions.
          */
         BLOCKED;
+
+        /**
+         * Checks whether a guild with this status may change to another status. A guild can always fall back to
+         * <code>UNKNOWN</code> or leave (<code>FOREIGN</code>), but it can only become <code>READY</code> after the
+         * setup dialogue or after being unblocked.
+         * @param next The requested status.
+         * @return true if the transition is legal.
+         */
+        public boolean canTransitionTo(@NotNull Status next) {
+            if (next == this || next == UNKNOWN || next == FOREIGN)
+                return true;
+
+            return switch (this) {
+                case UNKNOWN -> true;
+                case FOREIGN -> next == PENDING;
+                case PENDING -> next == READY || next == BLOCKED;
+                case READY   -> next == PENDING || next == BLOCKED;
+                case BLOCKED -> next == PENDING || next == READY;
+            };
+        }
     }
 
     public @NotNull Status getStatus() {
-        return status;
+        return status.get();
     }
 
-    public void setStatus(@NotNull Status status) {
-        this.status = status;
+    /**
+     * Checks whether the guild is <code>READY</code>. This is called for every interaction and does not lock.
+     * @return true if the bot is active on this guild.
+     */
+    public boolean isAvailable() {
+        return status.get() == Status.READY;
     }
 
+    /**
+     * Changes the status of this guild.
+     * @param status The new status.
+     * @throws IllegalStateException if the current status may not change to the new one.
+     * @see Status#canTransitionTo(Status)
+     */
+    public void setStatus(@NotNull Status status) throws IllegalStateException {
+        Status current;
+        do {
+            current = this.status.get();
+            if (!current.canTransitionTo(status))
+                throw new IllegalStateException("Illegal status transition: " + current + " -> " + status);
+        } while (!this.status.compareAndSet(current, status));
+    }
+
+    /**
+     * Changes the status of this guild only if it currently has the expected status. This allows concurrent callers
+     * to race for a transition without a lock - only one of them will succeed.
+     * @param expected The expected current status.
+     * @param status The new status.
+     * @return true if the status has been changed.
+     * @throws IllegalStateException if the expected status may not change to the new one.
+     */
+    public boolean compareAndSetStatus(@NotNull Status expected, @NotNull Status status) throws IllegalStateException {
+        if (!expected.canTransitionTo(status))
+            throw new IllegalStateException("Illegal status transition: " + expected + " -> " + status);
+        return this.status.compareAndSet(expected, status);
+    }
 
     /* ------------------------- */
 
@@ -104,8 +232,7 @@ public class GuildContainer {
     }
 
     /**
-     * Provides the cache of recently used IDs for this guild. If no IDs have been cached for that guild yet an empty
-     * array will be returned.
+     * Provides the cache of recently used IDs for this guild.
      * <p>This is used to prevent the same memes from being posted not long enough apart.
      * @return ID cache.
      * @see GuildContainer#addID(long)
@@ -124,6 +251,16 @@ public class GuildContainer {
         recentIDs.put(id);
     }
 
+    /**
+     * Provides the {@link ShuffleBag} of this guild, which determines the order in which memes are posted without
+     * repeating them.
+     * @return Shuffle state of this guild.
+     * @see DataService#getMemeShuffled(ShuffleBag, java.util.function.LongPredicate)
+     */
+    public @NotNull ShuffleBag getShuffleBag() {
+        return shuffleBag;
+    }
+
     /**
      * Provides the {@link ZoneId} associated with the UTC-offset of this guild.
      * <p>This may be <code>null</code> if the {@link Status} is not <code>READY</code>.
@@ -133,7 +270,70 @@ public class GuildContainer {
         return timeZone;
     }
 
+    /**
+     * Changes the time zone of this guild. The change is stored in the background.
+     * @param timeZone The new time zone.
+     */
     public void setTimeZone(@NotNull ZoneId timeZone) {
+        if (!timeZone.equals(this.timeZone))
+            Anura.singleton.getDataService().recordTimeZone(manager.getInstance().getLanguage(), timeZone.getId());
+
         this.timeZone = timeZone;
+        this.storePermanentData();
+    }
+
+    /**
+     * Provides the module mask of this guild. Until the guild has been configured all modules are enabled.
+     * @return Module mask.
+     * @see ModuleMask
+     */
+    public long getModules() {
+        return modules;
+    }
+
+    /**
+     * Changes the module mask of this guild. Modules that are always enabled stay enabled regardless of the mask. The
+     * change is stored in the background and the guild commands are synchronized if the mask has changed.
+     * @param modules The new module mask.
+     * @see ModuleMask
+     */
+    public void setModules(long modules) {
+        long old = this.modules;
+        this.modules = modules | ModuleMask.ALWAYS;
+        this.storePermanentData();
+
+        if (old != this.modules)
+            this.syncCommands();
+    }
+
+    /**
+     * Synchronizes the guild commands with the enabled modules in the background.
+     * @see de.eldritch.anura.core.command.CommandSynchronizer#syncGuild(Guild)
+     */
+    private void syncCommands() {
+        AnuraInstance instance = manager.getInstance();
+
+        Guild guild;
+        try {
+            guild = instance.getJDA().getGuildById(snowflake);
+        } catch (IllegalStateException e) {
+            // instance is not running, commands are synchronized on startup
+            return;
+        }
+        if (guild == null) return;
+
+        instance.getCommandSynchronizer().syncGuild(guild).whenComplete((updated, throwable) -> {
+            if (throwable != null)
+                instance.getLogger().log(Level.WARNING, "Could not synchronize commands of guild " + snowflake + ".", throwable);
+        });
+    }
+
+    /**
+     * Checks whether a module is enabled on this guild. This is a single bitwise AND and does not lock.
+     * @param module The module.
+     * @return true if the module is enabled for this guild.
+     */
+    public boolean isEnabled(@NotNull AnuraModule module) {
+        return (modules & module.bit()) != 0;
     }
 }
@@ -1,9 +1,14 @@
 package de.eldritch.anura.core.guild;
 
+import de.eldritch.anura.Anura;
 import de.eldritch.anura.core.AnuraInstance;
+import de.eldritch.anura.data.ShuffleBag;
+import de.eldritch.anura.data.entities.Meme;
+import de.eldritch.anura.util.LongConcurrentMap;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controls all {@link GuildContainer} objects for a single {@link AnuraInstance}.
@@ -11,20 +16,46 @@ import java.util.HashMap;
 public class GuildManager {
     private final AnuraInstance instance;
 
-    private final HashMap<Long, GuildContainer> guilds = new HashMap<>();
+    private final LongConcurrentMap<GuildContainer> guilds = new LongConcurrentMap<>();
 
 
     public GuildManager(@NotNull AnuraInstance instance) {
         this.instance = instance;
     }
 
+    /**
+     * Loads the stored configs of all guilds of this bot with a single query and creates their containers. Should be
+     * called once when the instance starts, so no interaction has to wait for the database later.
+     * @return Amount of loaded guilds.
+     * @throws SQLException if an SQL error occurs.
+     */
+    public int load() throws SQLException {
+        long botId = instance.getJDA().getSelfUser().getIdLong();
+        return Anura.singleton.getDataService().loadGuildConfigs(botId, config -> {
+            // events may already have created a container for this guild
+            GuildContainer existing = guilds.putIfAbsent(config.guildId(), new GuildContainer(this, config.guildId(), config));
+            if (existing != null)
+                existing.mergeStoredConfig(config);
+        });
+    }
+
+
+    /**
+     * Provides the {@link GuildContainer} of a guild. If the guild is not known yet a new container is created and
+     * registered. Concurrent requests for the same unknown guild all receive the same container.
+     * @param snowflake Snowflake ID of the guild.
+     * @return GuildContainer of the guild.
+     */
+    public @NotNull GuildContainer getContainer(long snowflake) {
+        return guilds.computeIfAbsent(snowflake, id -> new GuildContainer(this, id, null));
+    }
 
-    public GuildContainer getContainer(long snowflake) {
-        GuildContainer guild = guilds.get(snowflake);
-        if (guild == null) {
-            guild = new GuildContainer(this, snowflake);
-        }
-        return guild;
+    /**
+     * Removes the {@link GuildContainer} of a guild, e.g. after the bot has left it.
+     * @param snowflake Snowflake ID of the guild.
+     */
+    public void removeContainer(long snowflake) {
+        guilds.remove(snowflake);
     }
 
     /**
@@ -46,6 +77,33 @@ public class GuildManager {
         getContainer(snowflake).addID(id);
     }
 
+    /**
+     * Provides the next meme for a guild as determined by its {@link ShuffleBag} and marks it as recently used. Memes in
+     * the recent-ID cache of the guild are skipped, so they do not repeat across cycles of the bag. The meme is fetched
+     * asynchronously, so this is safe to call from the event thread.
+     * @param snowflake Snowflake ID of the guild.
+     * @return Future that completes with the meme.
+     * @see GuildContainer#getShuffleBag()
+     */
+    public @NotNull CompletableFuture<Meme> nextMeme(long snowflake) {
+        GuildContainer container = getContainer(snowflake);
+        return Anura.singleton.getDataService().async().getMemeShuffled(container.getShuffleBag(), container.getIDCache()::contains)
+                .thenApply(meme -> {
+                    container.addID(meme.id());
+                    return meme;
+                });
+    }
+
+    /**
+     * Checks whether a guild is <code>READY</code> without locking.
+     * @param snowflake Snowflake ID of the guild.
+     * @return true if the bot is active on that guild.
+     * @see GuildContainer#isAvailable()
+     */
+    public boolean isAvailable(long snowflake) {
+        return getContainer(snowflake).isAvailable();
+    }
+
     public GuildContainer.Status getStatus(long snowflake) {
         return getContainer(snowflake).getStatus();
     }
@@ -53,4 +111,8 @@ public class GuildManager {
     public void setStatus(long snowflake, GuildContainer.Status status) {
         getContainer(snowflake).setStatus(status);
     }
+
+    public @NotNull AnuraInstance getInstance() {
+        return instance;
+    }
 }
@@ -1,8 +1,11 @@
 package de.eldritch.anura.core.listener;
 
 import de.eldritch.anura.core.AnuraInstance;
+import de.eldritch.anura.util.metrics.Metric;
+import de.eldritch.anura.util.metrics.Metrics;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 abstract class AbstractInstanceListener extends ListenerAdapter {
     protected final AnuraInstance instance;
@@ -10,4 +13,26 @@ abstract class AbstractInstanceListener extends ListenerAdapter {
     public AbstractInstanceListener(@NotNull AnuraInstance instance) {
         this.instance = instance;
     }
+
+    /**
+     * Runs a handler on the current (event) thread and records the time it took in a timer of this instance.
+     * @param timer Timer metric.
+     * @param errors Counter metric that is incremented if the handler throws an exception or <code>null</code>.
+     * @param key Label value, e.g. the name of the command.
+     * @param handler The handler.
+     * @see Metrics#timer(Metric, String, String)
+     */
+    protected void timed(@NotNull Metric timer, @Nullable Metric errors, @NotNull String key, @NotNull Runnable handler) {
+        String name = instance.getLanguage().code();
+        long start = System.nanoTime();
+        try {
+            handler.run();
+        } catch (RuntimeException e) {
+            if (errors != null)
+                Metrics.counter(errors, name, key).increment();
+            throw e;
+        } finally {
+            Metrics.timer(timer, name, key).recordSince(start);
+        }
+    }
 }
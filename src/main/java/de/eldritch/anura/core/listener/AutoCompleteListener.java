@@ -3,12 +3,11 @@ package de.eldritch.anura.core.listener;
 import de.eldritch.anura.Anura;
 import de.eldritch.anura.core.AnuraInstance;
 import de.eldritch.anura.data.StaticData;
+import de.eldritch.anura.util.metrics.Metric;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.*;
-
 /**
  * Generic listener for global command auto complete interactions.
  * @see CommandAutoCompleteInteractionEvent
@@ -26,7 +25,7 @@ public class AutoCompleteListener extends AbstractInstanceListener {
 
         // determine command
         switch (event.getName().toLowerCase()) {
-            case "timezone" -> this.commandTimezone(event);
+            case "timezone" -> this.timed(Metric.AUTOCOMPLETE, null, "timezone", () -> this.commandTimezone(event));
             // TODO
         }
     }
@@ -41,20 +40,10 @@ public class AutoCompleteListener extends AbstractInstanceListener {
      * @param event The interaction event.
      */
     private void commandTimezone(@NotNull CommandAutoCompleteInteractionEvent event) {
-        // build a Set of possible values beginning with recently used values
-        LinkedHashSet<String> choices = new LinkedHashSet<>(Anura.singleton.getDataService().getRecentTimeZoneCache());
-        choices.addAll(StaticData.AVAILABLE_ZONE_IDS);
-
-        // filter possible matches
-        String buffer = event.getFocusedOption().getValue().toLowerCase();
-        choices.removeIf(s -> !s.toLowerCase().contains(buffer));
-
-        // reply to event
-        event.replyChoiceStrings(
-                // remove overflow
-                choices.size() > 25
-                        ? choices.stream().toList().subList(0, 25)
-                        : choices
-        ).queue();
+        // search the prebuilt index, ranking frequently used values first
+        event.replyChoiceStrings(StaticData.ZONE_INDEX.search(
+                event.getFocusedOption().getValue(),
+                Anura.singleton.getDataService().getFrequentTimeZones(instance.getLanguage())
+        )).queue();
     }
 }
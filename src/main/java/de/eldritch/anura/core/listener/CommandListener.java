@@ -2,7 +2,9 @@ package de.eldritch.anura.core.listener;
 
 import de.eldritch.anura.core.AnuraInstance;
 import de.eldritch.anura.core.module.AnuraModule;
+import de.eldritch.anura.data.ZoneListFile;
 import de.eldritch.anura.util.DiscordUtil;
+import de.eldritch.anura.util.metrics.Metric;
 import de.eldritch.anura.util.text.TextUtil;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.TextChannel;
@@ -10,7 +12,6 @@ import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEve
 import net.dv8tion.jda.api.interactions.commands.Command;
 import org.jetbrains.annotations.NotNull;
 
-import java.time.ZoneId;
 import java.util.logging.Level;
 
 /**
@@ -30,7 +31,7 @@ public class CommandListener extends AbstractInstanceListener {
 
         // determine command
         switch (event.getName().toLowerCase()) {
-            case "timezones" -> { this.commandTimezones(event); return; }
+            case "timezones" -> { this.timed(Metric.COMMAND, Metric.COMMAND_ERRORS, "timezones", () -> this.commandTimezones(event)); return; }
             // TODO
         }
 
@@ -58,23 +59,9 @@ public class CommandListener extends AbstractInstanceListener {
                         .setDescription(description)
                         .setTitle(title)
                         .build())
-                .addFile(getZoneIdFile(), "available-tzdb-timezones.txt")
+                .addFile(ZoneListFile.PLAIN.openStream(), ZoneListFile.PLAIN.getFileName())
                 .queue(null,
                         throwable -> instance.getLogger().log(Level.WARNING, "Encountered an exception when attempting to send timezone list.", throwable)
                 );
     }
-
-    /* ------------------------- */
-
-    /**
-     * Provides a list of all available {@link ZoneId ZoneIds} as a byte array.
-     * @return String of available ZoneIds as byte array.
-     * @see CommandListener#commandTimezones(SlashCommandInteractionEvent)
-     */
-    private byte[] getZoneIdFile() {
-        StringBuilder builder = new StringBuilder();
-        for (String availableZoneId : ZoneId.getAvailableZoneIds())
-            builder.append(availableZoneId).append("\n");
-        return builder.toString().getBytes();
-    }
-}
+}
\ No newline at end of file
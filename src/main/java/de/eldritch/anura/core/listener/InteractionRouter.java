@@ -0,0 +1,317 @@
+package de.eldritch.anura.core.listener;
+
+import de.eldritch.anura.core.AnuraInstance;
+import de.eldritch.anura.util.LongConcurrentMap;
+import de.eldritch.anura.util.metrics.Metric;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.GenericComponentInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.component.SelectMenuInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+
+/**
+ * Dispatches interactions to the single {@link ListenerAdapter} that owns them, instead of registering every open
+ * dialogue (e.g. an {@link de.eldritch.anura.core.module.invite.InviteForm InviteForm}) as a JDA listener that has to
+ * inspect every event of the instance.
+ * <p>Owners register a {@link Route} for a channel and bind it to their message once it has been sent. Component
+ * interactions are looked up by message ID, messages and slash commands by channel ID - both in constant time. A
+ * component is only dispatched if its custom ID starts with the prefix of the route (see
+ * {@link InteractionRouter#componentId(String, String)}).
+ * <p>A channel may have multiple routes at once (e.g. two invite forms in the DM channel of an owner who added the bot
+ * to two guilds). Messages and slash commands of that channel are dispatched to the route that has been registered or
+ * used by a component interaction most recently.
+ * <p>Routes expire if they have not been used for their time-to-live. Expired routes are removed on lookup and by a
+ * sweep that runs at most once per minute when a new route is registered.
+ */
+public class InteractionRouter extends AbstractInstanceListener {
+    /**
+     * Default time after which an unused route expires.
+     */
+    public static final long DEFAULT_TTL = 30 * 60 * 1000L;
+
+    private static final long SWEEP_INTERVAL = 60 * 1000L;
+    private static final char SEPARATOR = ':';
+
+    private final LongConcurrentMap<Route> byMessage = new LongConcurrentMap<>();
+    private final LongConcurrentMap<ChannelRoutes> byChannel = new LongConcurrentMap<>();
+
+    private volatile long lastSweep = System.currentTimeMillis();
+
+    public InteractionRouter(@NotNull AnuraInstance instance) {
+        super(instance);
+    }
+
+    /* ---------- ROUTES ---------- */
+
+    /**
+     * Registers a new route for a channel. Existing routes of that channel stay open, but messages and slash commands of
+     * the channel are dispatched to the new route until another route of the channel is used.
+     * @param channelId Snowflake ID of the channel.
+     * @param prefix Custom ID prefix of all components that belong to the route.
+     * @param target Listener to dispatch events to.
+     * @param ttl Time in milliseconds after which the route expires if it is not used.
+     * @return The new route.
+     * @throws IllegalArgumentException if the prefix contains the separator or the ttl is not positive.
+     */
+    public @NotNull Route register(long channelId, @NotNull String prefix, @NotNull ListenerAdapter target, long ttl) throws IllegalArgumentException {
+        if (prefix.indexOf(SEPARATOR) >= 0)
+            throw new IllegalArgumentException("Prefix may not contain '" + SEPARATOR + "'.");
+        if (ttl <= 0)
+            throw new IllegalArgumentException("TTL must be positive.");
+
+        this.sweepIfDue();
+
+        Route route = new Route(channelId, prefix, target, ttl);
+        // the routes of a channel may be discarded concurrently, in that case they are created again
+        ChannelRoutes routes;
+        do {
+            routes = byChannel.computeIfAbsent(channelId, id -> new ChannelRoutes());
+        } while (!routes.add(route));
+        return route;
+    }
+
+    /**
+     * Provides the amount of active routes.
+     * @return Amount of routes.
+     */
+    public int size() {
+        int size = 0;
+        for (ChannelRoutes routes : byChannel.values())
+            size += routes.size();
+        return size;
+    }
+
+    /**
+     * Builds a custom ID for a component of a route.
+     * @param prefix Prefix of the route.
+     * @param id ID of the component within the route.
+     * @return Custom ID.
+     */
+    public static @NotNull String componentId(@NotNull String prefix, @NotNull String id) {
+        return prefix + SEPARATOR + id;
+    }
+
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < SWEEP_INTERVAL) return;
+        lastSweep = now;
+
+        for (ChannelRoutes routes : byChannel.values())
+            for (Route route : routes.toArray())
+                if (route.isExpired(now))
+                    route.close();
+    }
+
+    /**
+     * Refreshes the expiry of a route, or closes it if it has already expired.
+     * @return <code>false</code> if the route has expired.
+     */
+    private static boolean touch(@NotNull Route route) {
+        long now = System.currentTimeMillis();
+        if (route.isExpired(now)) {
+            route.close();
+            return false;
+        }
+
+        route.expiresAt = now + route.ttl;
+        return true;
+    }
+
+    private @Nullable Route lookupChannel(long channelId) {
+        while (true) {
+            ChannelRoutes routes = byChannel.get(channelId);
+            if (routes == null)
+                return null;
+
+            Route route = routes.first();
+            if (route == null)
+                return null;
+
+            // expired routes are closed, which removes them from the channel
+            if (touch(route))
+                return route;
+        }
+    }
+
+    private @Nullable Route lookupComponent(@NotNull GenericComponentInteractionCreateEvent event) {
+        Route route = byMessage.get(event.getMessageIdLong());
+        if (route == null || !touch(route))
+            return null;
+
+        String id = event.getComponentId();
+        if (id.length() <= route.prefix.length() || !id.startsWith(route.prefix) || id.charAt(route.prefix.length()) != SEPARATOR)
+            return null;
+
+        // the channel now belongs to the route the user has interacted with
+        ChannelRoutes routes = byChannel.get(route.channelId);
+        if (routes != null)
+            routes.moveToFront(route);
+        return route;
+    }
+
+    /* ---------- DISPATCH ---------- */
+
+    @Override
+    public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
+        Route route = lookupComponent(event);
+        if (route != null)
+            this.timed(Metric.ROUTED, null, route.prefix, () -> route.target.onButtonInteraction(event));
+    }
+
+    @Override
+    public void onSelectMenuInteraction(@NotNull SelectMenuInteractionEvent event) {
+        Route route = lookupComponent(event);
+        if (route != null)
+            this.timed(Metric.ROUTED, null, route.prefix, () -> route.target.onSelectMenuInteraction(event));
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull MessageReceivedEvent event) {
+        if (event.getAuthor().isBot()) return;
+
+        Route route = lookupChannel(event.getChannel().getIdLong());
+        if (route != null)
+            this.timed(Metric.ROUTED, null, route.prefix, () -> route.target.onMessageReceived(event));
+    }
+
+    @Override
+    public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent event) {
+        Route route = lookupChannel(event.getChannel().getIdLong());
+        if (route != null)
+            this.timed(Metric.ROUTED, null, route.prefix, () -> route.target.onSlashCommandInteraction(event));
+    }
+
+    /* ------------------------- */
+
+    /**
+     * A registration of a single owner.
+     */
+    public final class Route {
+        private final long channelId;
+        private final String prefix;
+        private final long ttl;
+
+        private volatile ListenerAdapter target;
+        private volatile long messageId = -1;
+        private volatile long expiresAt;
+        private volatile boolean closed;
+
+        private Route(long channelId, @NotNull String prefix, @NotNull ListenerAdapter target, long ttl) {
+            this.channelId = channelId;
+            this.prefix    = prefix;
+            this.target    = target;
+            this.ttl       = ttl;
+            this.expiresAt = System.currentTimeMillis() + ttl;
+        }
+
+        /**
+         * Binds this route to a message, so component interactions on that message are dispatched to it. A route can
+         * only be bound to one message at a time.
+         * @param messageId Snowflake ID of the message.
+         */
+        public void bindMessage(long messageId) {
+            if (closed) return;
+
+            long old = this.messageId;
+            if (old != -1)
+                byMessage.remove(old, this);
+
+            this.messageId = messageId;
+            byMessage.put(messageId, this);
+
+            // the route might have been closed concurrently
+            if (closed)
+                byMessage.remove(messageId, this);
+        }
+
+        /**
+         * Changes the listener events are dispatched to, e.g. when a dialogue proceeds to its next step.
+         * @param target The new listener.
+         */
+        public void setTarget(@NotNull ListenerAdapter target) {
+            this.target = target;
+        }
+
+        /**
+         * Provides the custom ID of a component that belongs to this route.
+         * @param id ID of the component within this route.
+         * @return Custom ID.
+         * @see InteractionRouter#componentId(String, String)
+         */
+        public @NotNull String componentId(@NotNull String id) {
+            return InteractionRouter.componentId(prefix, id);
+        }
+
+        /**
+         * Removes this route. Further events are no longer dispatched to its listener.
+         */
+        public void close() {
+            closed = true;
+
+            ChannelRoutes routes = byChannel.get(channelId);
+            if (routes != null && routes.remove(this))
+                byChannel.remove(channelId, routes);
+
+            // only remove the mapping if it has not been replaced by another route
+            long message = this.messageId;
+            if (message != -1)
+                byMessage.remove(message, this);
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        private boolean isExpired(long now) {
+            return now > expiresAt;
+        }
+    }
+
+    /**
+     * All open routes of a single channel, ordered from the most recently used to the least recently used. Once the
+     * last route has been removed the object is discarded and no longer accepts routes.
+     */
+    private static final class ChannelRoutes {
+        private final ArrayDeque<Route> routes = new ArrayDeque<>(2);
+        private boolean discarded = false;
+
+        synchronized boolean add(@NotNull Route route) {
+            if (discarded) return false;
+
+            routes.addFirst(route);
+            return true;
+        }
+
+        /**
+         * @return <code>true</code> if the last route has been removed and this object has been discarded.
+         */
+        synchronized boolean remove(@NotNull Route route) {
+            routes.remove(route);
+            if (routes.isEmpty())
+                discarded = true;
+            return discarded;
+        }
+
+        synchronized void moveToFront(@NotNull Route route) {
+            if (routes.peekFirst() != route && routes.remove(route))
+                routes.addFirst(route);
+        }
+
+        synchronized @Nullable Route first() {
+            return routes.peekFirst();
+        }
+
+        synchronized int size() {
+            return routes.size();
+        }
+
+        synchronized @NotNull Route[] toArray() {
+            return routes.toArray(new Route[0]);
+        }
+    }
+}
@@ -2,10 +2,15 @@ package de.eldritch.anura.core.module;
 
 import de.eldritch.anura.core.AnuraInstance;
 import de.eldritch.anura.util.logging.NestedLogger;
+import de.eldritch.anura.util.metrics.Metric;
+import de.eldritch.anura.util.metrics.Metrics;
 import de.eldritch.anura.util.text.TextUtil;
 import net.dv8tion.jda.api.entities.Emoji;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
 import java.util.logging.Level;
 
 public abstract class AnuraModule {
@@ -16,8 +21,12 @@ public abstract class AnuraModule {
 
     private boolean enabled;
 
+    // bit of this module in the per-guild module mask
+    private final long bit;
+
     public AnuraModule(@NotNull AnuraInstance instance) {
         this.instance = instance;
+        this.bit = ModuleMask.bit(offset());
 
         logger = new NestedLogger("MODULE | " + moduleName.toUpperCase(), instance.getLogger());
     }
@@ -29,6 +38,17 @@ public abstract class AnuraModule {
 
     public void onDisable() { }
 
+    /**
+     * Provides the commands this module needs on a guild. These are registered by the
+     * {@link de.eldritch.anura.core.command.CommandSynchronizer CommandSynchronizer} for every guild while the module
+     * is enabled.
+     * @param guild The guild.
+     * @return List of guild commands.
+     */
+    public @NotNull List<CommandData> getGuildCommands(@NotNull Guild guild) {
+        return List.of();
+    }
+
     /* ---------- UI ---------- */
 
     public static String getDescription(AnuraModule module) throws IllegalArgumentException {
@@ -46,12 +66,16 @@ public abstract class AnuraModule {
             enabled = false;
             this.onDisable();
         } else if (!enabled && b) {
+            long start = System.nanoTime();
             try {
                 enabled = true;
                 this.onEnable();
             } catch (AnuraModuleEnableException e) {
                 getLogger().log(Level.WARNING, "Exception while attempting to enable module '" + getName() + "'.", e);
+                Metrics.counter(Metric.MODULE_ENABLE_ERRORS, instance.getLanguage().code(), getName()).increment();
                 enabled = false;
+            } finally {
+                Metrics.timer(Metric.MODULE_ENABLE, instance.getLanguage().code(), getName()).recordSince(start);
             }
         }
     }
@@ -98,4 +122,14 @@ public abstract class AnuraModule {
     public int offset() {
         return -1;
     }
+
+    /**
+     * Provides the bit that represents this module in a module mask. This is derived from {@link AnuraModule#offset()}
+     * once when the module is created.
+     * @return Module bit.
+     * @see ModuleMask
+     */
+    public final long bit() {
+        return bit;
+    }
 }
\ No newline at end of file
@@ -23,6 +23,8 @@ public class ModuleManager {
     private final AnuraInstance instance;
 
     private final HashSet<AnuraModule> modules = new HashSet<>();
+    // bits of all registered optional modules
+    private long registeredBits;
 
     public ModuleManager(@NotNull AnuraInstance instance) {
         this.instance = instance;
@@ -36,13 +38,19 @@ public class ModuleManager {
         AnuraModule obj;
         try {
             // instantiate
-            obj = clazz.getConstructor((Class<?>[]) null).newInstance();
+            obj = clazz.getConstructor(AnuraInstance.class).newInstance(instance);
+
+            // offsets must be unique as they are persisted per guild
+            if (obj.bit() != ModuleMask.ALWAYS && (registeredBits & obj.bit()) != 0)
+                throw new AnuraModuleEnableException(clazz.getSimpleName() + " uses an offset that is already taken.");
 
             // add to set
             if (!modules.add(obj)) // stop if another object of this module has already been registered
                 throw new AnuraModuleEnableException(clazz.getSimpleName() + " already exists.");
+            if (obj.bit() != ModuleMask.ALWAYS)
+                registeredBits |= obj.bit();
             instance.getLogger().info("Registered " + clazz.getSimpleName() + ".");
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException | NoSuchMethodException | AnuraModuleEnableException e) {
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException | NoSuchMethodException | AnuraModuleEnableException | IllegalArgumentException e) {
             instance.getLogger().log(Level.WARNING, "Unable to instantiate " + clazz.getSimpleName() + ". It will be ignored.", e);
         }
     }
@@ -61,11 +69,22 @@ public class ModuleManager {
     public boolean unregister(AnuraModule module) {
         if (modules.contains(module)) {
             module.setEnabled(false);
+            if (module.bit() != ModuleMask.ALWAYS)
+                registeredBits &= ~module.bit();
             return modules.remove(module);
         }
         return false;
     }
 
+    /**
+     * Provides the bits of all registered modules that can be enabled or disabled per guild.
+     * @return Mask of all optional modules.
+     * @see ModuleMask
+     */
+    public long getRegisteredBits() {
+        return registeredBits;
+    }
+
     /**
      * Returns the amount of enabled modules.
      * @return The amount of enabled modules.
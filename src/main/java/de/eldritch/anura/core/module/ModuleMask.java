@@ -0,0 +1,82 @@
+package de.eldritch.anura.core.module;
+
+import de.eldritch.anura.core.guild.GuildContainer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Helper for the 64-bit masks that represent which {@link AnuraModule AnuraModules} are enabled on a guild.
+ * <p>Every module with a non-negative {@link AnuraModule#offset() offset} owns the bit at that offset. The highest bit
+ * ({@link ModuleMask#ALWAYS}) is owned by all modules that can not be disabled and is set in every mask that is held in
+ * memory, so checking a module is always a single AND - no matter whether the module is optional or not. This bit is
+ * never persisted; the <code>data</code> column of the <code>modules</code> table only contains the optional bits.
+ * @see GuildContainer#isEnabled(AnuraModule)
+ */
+public final class ModuleMask {
+    /**
+     * Bit of all modules that are always enabled.
+     */
+    public static final long ALWAYS = Long.MIN_VALUE;
+    /**
+     * Mask with all modules enabled.
+     */
+    public static final long ALL = -1L;
+    /**
+     * Highest offset an optional module may use.
+     */
+    public static final int MAX_OFFSET = 62;
+
+    private ModuleMask() { }
+
+    /**
+     * Provides the bit of a module offset.
+     * @param offset Module offset (negative if the module is always enabled).
+     * @return Bit of the module.
+     * @throws IllegalArgumentException if the offset is greater than {@link ModuleMask#MAX_OFFSET}.
+     */
+    public static long bit(int offset) throws IllegalArgumentException {
+        if (offset > MAX_OFFSET)
+            throw new IllegalArgumentException("Module offset may not be greater than " + MAX_OFFSET + ".");
+        return offset < 0 ? ALWAYS : 1L << offset;
+    }
+
+    /**
+     * Checks whether a module is enabled in a mask.
+     * @param mask The (in-memory) mask.
+     * @param module The module.
+     * @return true if the bit of the module is set.
+     */
+    public static boolean isEnabled(long mask, @NotNull AnuraModule module) {
+        return (mask & module.bit()) != 0;
+    }
+
+    /**
+     * Enables or disables a module in a mask. Modules that are always enabled can not be disabled.
+     * @param mask The mask.
+     * @param module The module.
+     * @param enabled Whether the module should be enabled.
+     * @return The changed mask.
+     */
+    public static long with(long mask, @NotNull AnuraModule module, boolean enabled) {
+        if (module.bit() == ALWAYS)
+            return mask;
+        return enabled ? mask | module.bit() : mask & ~module.bit();
+    }
+
+    /**
+     * Converts persisted mask data to a mask that can be held in memory.
+     * @param data Value of the <code>data</code> column.
+     * @return In-memory mask.
+     */
+    public static long fromData(long data) {
+        return data | ALWAYS;
+    }
+
+    /**
+     * Converts an in-memory mask to the value that is persisted.
+     * @param mask In-memory mask.
+     * @return Value for the <code>data</code> column.
+     */
+    public static long toData(long mask) {
+        return mask & ~ALWAYS;
+    }
+}
@@ -22,4 +22,9 @@ public class EventModule extends AnuraModule implements OptionalModule {
     }
 
     /* ------------------------- */
+
+    @Override
+    public int offset() {
+        return 0;
+    }
 }
@@ -1,5 +1,7 @@
 package de.eldritch.anura.core.module.invite;
 
+import de.eldritch.anura.core.guild.GuildContainer;
+import de.eldritch.anura.core.listener.InteractionRouter;
 import de.eldritch.anura.core.module.AnuraModule;
 import de.eldritch.anura.core.module.invite.query.ModuleQuery;
 import de.eldritch.anura.core.module.invite.query.Query;
@@ -12,6 +14,7 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.interactions.components.ActionRow;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import org.jetbrains.annotations.NotNull;
@@ -19,25 +22,35 @@ import org.jetbrains.annotations.NotNull;
 import java.util.logging.Level;
 
 public class InviteForm {
+    // custom ID prefix of all components of the form
+    private static final String PREFIX = "invite";
+
     private final AnuraModule module;
     private final Guild guild;
 
     private final MessageChannel channel;
     private long message;
 
+    // dispatches interactions on the form message to the current query
+    private final InteractionRouter.Route route;
+
     public final MessageEmbed embedTemplate;
 
     private int queryPointer = 0;
-    private final Query[] queries = {
-            new TimeQuery(this),
-            new ModuleQuery(this)
-    };
+    private final Query[] queries;
 
     InviteForm(AnuraModule module, @NotNull Guild guild, @NotNull MessageChannel channel) {
         this.module = module;
         this.guild = guild;
         this.channel = channel;
 
+        // queries need the route for their component IDs, so it starts without a target
+        this.route = module.getInstance().getInteractionRouter().register(channel.getIdLong(), PREFIX, new ListenerAdapter() { }, InteractionRouter.DEFAULT_TTL);
+        this.queries = new Query[]{
+                new TimeQuery(this),
+                new ModuleQuery(this)
+        };
+
         // template for all embeds
         embedTemplate = new EmbedBuilder()
                 .setFooter(DiscordUtil.FOOTER_TEXT + TextUtil.get("module.invite.message.footerSuffix", module.getInstance().getLanguage()).toString())
@@ -46,10 +59,16 @@ public class InviteForm {
                 .build();
 
         // send initial message
-        module.getInstance().getJDA().addEventListener(queries[0]);
+        route.setTarget(queries[0]);
         channel.sendMessage(queries[0].build()).queue(
-                message1 -> message = message1.getIdLong(),
-                throwable -> module.getLogger().log(Level.WARNING, "Unable to start InviteForm", throwable)
+                message1 -> {
+                    message = message1.getIdLong();
+                    route.bindMessage(message);
+                },
+                throwable -> {
+                    route.close();
+                    module.getLogger().log(Level.WARNING, "Unable to start InviteForm", throwable);
+                }
         );
     }
 
@@ -60,15 +79,19 @@ public class InviteForm {
      * the user all queries have been submitted.
      */
     public void next() {
-        // remove old interaction listener
-        module.getInstance().getJDA().removeEventListener(queries[queryPointer]);
-
         if (++queryPointer < queries.length) {
-            // add new interaction listener
-            module.getInstance().getJDA().addEventListener(queries[queryPointer]);
+            // route interactions to the new query
+            route.setTarget(queries[queryPointer]);
             // send new message
             refreshMessage();
         } else {
+            // no more interactions to handle
+            route.close();
+            // the guild has been set up
+            GuildContainer container = getGuildContainer();
+            GuildContainer.Status status = container.getStatus();
+            if (status.canTransitionTo(GuildContainer.Status.READY))
+                container.compareAndSetStatus(status, GuildContainer.Status.READY);
             // send final message
             channel.editMessageById(message, getFinalMessage()).queue();
         }
@@ -86,16 +109,34 @@ public class InviteForm {
         String repeatSetup = TextUtil.get("module.invite.finalMessage.button.repeat", module.getInstance().getLanguage()).toString();
         return new MessageBuilder()
                 .setEmbeds(new EmbedBuilder(embedTemplate).setDescription(description).build())
-                .setActionRows(ActionRow.of(Button.secondary("repeatSetup",repeatSetup)))
+                .setActionRows(ActionRow.of(Button.secondary(componentId("repeatSetup"), repeatSetup)))
                 .build();
     }
 
     /* ------------------------- */
 
+    /**
+     * Provides the custom ID of a component of this form. Interactions are only routed to the form if the component
+     * uses such an ID.
+     * @param id ID of the component within the form.
+     * @return Custom ID.
+     */
+    public @NotNull String componentId(@NotNull String id) {
+        return route.componentId(id);
+    }
+
     public AnuraModule getModule() {
         return module;
     }
 
+    public @NotNull Guild getGuild() {
+        return guild;
+    }
+
+    public @NotNull GuildContainer getGuildContainer() {
+        return module.getInstance().getGuildManager().getContainer(guild.getIdLong());
+    }
+
     public long getChannelId() {
         return channel.getIdLong();
     }
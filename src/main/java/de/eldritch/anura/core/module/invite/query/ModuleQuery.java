@@ -1,7 +1,8 @@
 package de.eldritch.anura.core.module.invite.query;
 
+import de.eldritch.anura.core.guild.GuildContainer;
 import de.eldritch.anura.core.module.AnuraModule;
-import de.eldritch.anura.core.module.ModuleManager;
+import de.eldritch.anura.core.module.ModuleMask;
 import de.eldritch.anura.core.module.OptionalModule;
 import de.eldritch.anura.core.module.invite.InviteForm;
 import de.eldritch.anura.util.text.Language;
@@ -9,18 +10,18 @@ import de.eldritch.anura.util.text.TextUtil;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.MessageBuilder;
 import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.SelectMenuInteractionEvent;
 import net.dv8tion.jda.api.interactions.components.ActionRow;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import net.dv8tion.jda.api.interactions.components.selections.SelectMenu;
-import net.dv8tion.jda.api.interactions.components.selections.SelectOption;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
 import java.util.List;
+import java.util.logging.Level;
 
 public class ModuleQuery extends Query {
-    private final HashMap<String, Boolean> moduleMap = new HashMap<>();
+    private final GuildContainer guild;
 
     private final Message messageTemplate;
 
@@ -30,7 +31,7 @@ public class ModuleQuery extends Query {
     public ModuleQuery(@NotNull InviteForm form) {
         super(form);
 
-        this.buildModuleMap();
+        this.guild = form.getGuildContainer();
 
         this.language = form.getModule().getInstance().getLanguage();
 
@@ -41,7 +42,7 @@ public class ModuleQuery extends Query {
 
         messageTemplate = new MessageBuilder()
                 .setActionRows(ActionRow.of(
-                        Button.primary("next", next),
+                        Button.primary(form.componentId("next"), next),
                         Button.link("https://github.com/TurtleException/Anura/wiki/Setting-up", help)
                 ), ActionRow.of(
                         moduleMenu()
@@ -49,13 +50,6 @@ public class ModuleQuery extends Query {
                 .build();
     }
 
-    private void buildModuleMap() {
-        moduleMap.clear();
-        for (AnuraModule module : form.getModule().getInstance().getModuleManager().getRegisteredModules()) {
-            moduleMap.put(module.getName(), true);
-        }
-    }
-
     /* ------------------------- */
 
     private SelectMenu moduleMenu() {
@@ -72,7 +66,7 @@ public class ModuleQuery extends Query {
                 .toList();
 
         // basic component
-        SelectMenu.Builder builder = SelectMenu.create("presets")
+        SelectMenu.Builder builder = SelectMenu.create(form.componentId("presets"))
                 .setRequiredRange(0, modules.size())
                 .setPlaceholder(placeholder);
 
@@ -82,10 +76,10 @@ public class ModuleQuery extends Query {
         }
 
         // select defaults
-        builder.setDefaultOptions(builder
-                .getOptions()
-                .stream()
-                .filter(selectOption -> moduleMap.getOrDefault(selectOption.getLabel(), false))
+        long mask = guild.getModules();
+        builder.setDefaultValues(modules.stream()
+                .filter(module -> ModuleMask.isEnabled(mask, module))
+                .map(AnuraModule::getName)
                 .toList()
         );
 
@@ -104,18 +98,32 @@ public class ModuleQuery extends Query {
     /* ------------------------- */
 
     @Override
-    public void onSelectMenuInteraction(@NotNull SelectMenuInteractionEvent event) {
-        // confirm channel & message
-        if (event.getChannel().getIdLong() != form.getChannelId()) return;
-        if (event.getMessage().getIdLong() != form.getMessageId()) return;
+    public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
+        event.deferEdit().queue();
 
+        // check which button has been pressed
+        String id = event.getButton().getId();
+        if (form.componentId("next").equals(id)) {
+            // modules are stored by the select menu, this finishes the form
+            form.next();
+        } else {
+            form.getModule().getLogger().log(Level.WARNING, "Illegal button ID '" + id + "' in message "
+                    + event.getMessageId() + " of channel " + event.getChannel().getId() + ".");
+        }
+    }
+
+    @Override
+    public void onSelectMenuInteraction(@NotNull SelectMenuInteractionEvent event) {
         //acknowledge event
         event.deferEdit().queue();
 
-        // update map
-        List<SelectOption> selected = event.getSelectedOptions();
-        for (SelectOption option : event.getComponent().getOptions()) {
-            moduleMap.put(option.getLabel(), selected.contains(option));
+        // update mask
+        List<String> selected = event.getValues();
+        long mask = guild.getModules();
+        for (AnuraModule module : form.getModule().getInstance().getModuleManager().getRegisteredModules()) {
+            if (module instanceof OptionalModule)
+                mask = ModuleMask.with(mask, module, selected.contains(module.getName()));
         }
+        guild.setModules(mask);
     }
 }
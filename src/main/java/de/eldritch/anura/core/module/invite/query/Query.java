@@ -5,6 +5,11 @@ import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * A single step of an {@link InviteForm}. Queries are not registered as JDA listeners; the form routes the events of its
+ * message and channel to the current query via the
+ * {@link de.eldritch.anura.core.listener.InteractionRouter InteractionRouter}.
+ */
 public abstract class Query extends ListenerAdapter {
     protected final InviteForm form;
 
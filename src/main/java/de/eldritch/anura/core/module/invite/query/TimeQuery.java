@@ -50,7 +50,7 @@ public class TimeQuery extends Query {
 
         messageTemplate = new MessageBuilder()
                 .setActionRows(ActionRow.of(
-                        Button.primary("next", next),
+                        Button.primary(form.componentId("next"), next),
                         Button.link("https://github.com/TurtleException/Anura/wiki/Setting-up", help)
                 ), ActionRow.of(
                         frequentZones()
@@ -66,12 +66,12 @@ public class TimeQuery extends Query {
         String placeholder = TextUtil.get("module.invite.query.menu.placeholder", language).toString();
 
         // basic component
-        SelectMenu.Builder builder = SelectMenu.create("presets")
+        SelectMenu.Builder builder = SelectMenu.create(form.componentId("presets"))
                 .setRequiredRange(1,1)
                 .setPlaceholder(placeholder);
 
         // retrieve frequent time zones
-        List<String> presets = Anura.singleton.getDataService().getRecentTimeZones();
+        List<String> presets = Anura.singleton.getDataService().getFrequentTimeZones(language);
 
         Instant instant = Instant.now();
 
@@ -109,15 +109,13 @@ public class TimeQuery extends Query {
 
     @Override
     public void onButtonInteraction(@NotNull ButtonInteractionEvent event) {
-        // confirm channel & message
-        if (event.getChannel().getIdLong() != form.getChannelId()) return;
-        if (event.getMessage().getIdLong() != form.getMessageId()) return;
-
         event.deferEdit().queue();
 
         // check which button has been pressed
         String id = event.getButton().getId();
-        if ("next".equals(id)) {
+        if (form.componentId("next").equals(id)) {
+            // stored in the background
+            form.getGuildContainer().setTimeZone(currentZone);
             form.next();
         } else {
             form.getModule().getLogger().log(Level.WARNING, "Illegal button ID '" + id + "' in message "
@@ -129,10 +127,6 @@ public class TimeQuery extends Query {
 
     @Override
     public void onSelectMenuInteraction(@NotNull SelectMenuInteractionEvent event) {
-        // confirm channel & message
-        if (event.getChannel().getIdLong() != form.getChannelId()) return;
-        if (event.getMessage().getIdLong() != form.getMessageId()) return;
-
         event.deferEdit().queue();
 
         List<String> values = event.getValues();
@@ -154,8 +148,6 @@ public class TimeQuery extends Query {
 
     @Override
     public void onMessageReceived(@NotNull MessageReceivedEvent event) {
-        // confirm channel
-        if (event.getChannel().getIdLong() != form.getChannelId()) return;
         if (event.getChannel() instanceof TextChannel) return; // not allowed on guild channels
 
         String zone = event.getMessage().getContentRaw();
@@ -171,9 +163,6 @@ public class TimeQuery extends Query {
 
     @Override
     public void onSlashCommandInteraction(@NotNull SlashCommandInteractionEvent event) {
-        // confirm channel
-        if (event.getChannel().getIdLong() != form.getChannelId()) return;
-
         event.deferReply(true).queue();
 
         String zone   = event.getOptions().get(0).getAsString();
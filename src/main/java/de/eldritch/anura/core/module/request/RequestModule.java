@@ -22,4 +22,9 @@ public class RequestModule extends AnuraModule implements OptionalModule {
     }
 
     /* ------------------------- */
+
+    @Override
+    public int offset() {
+        return 1;
+    }
 }
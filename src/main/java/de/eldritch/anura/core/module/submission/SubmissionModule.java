@@ -2,15 +2,10 @@ package de.eldritch.anura.core.module.submission;
 
 import de.eldritch.anura.core.AnuraInstance;
 import de.eldritch.anura.core.module.AnuraModule;
-import de.eldritch.anura.core.module.AnuraModuleEnableException;
 import de.eldritch.anura.core.module.OptionalModule;
 import net.dv8tion.jda.api.entities.Emoji;
-import net.dv8tion.jda.api.entities.Guild;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-import java.util.logging.Level;
-
 /**
  * This module is used to submit new memes for the database.
  */
@@ -19,15 +14,6 @@ public class SubmissionModule extends AnuraModule implements OptionalModule {
         super(instance);
     }
 
-    @Override
-    public void onEnable() throws AnuraModuleEnableException {
-        List<Guild> guilds = getInstance().getJDA().getGuilds();
-        getLogger().log(Level.INFO, "Registering commands for " + guilds.size() + " guilds...");
-        for (Guild guild : guilds) {
-
-        }
-    }
-
     /* ---------- UI ---------- */
 
     @Override
@@ -36,4 +22,9 @@ public class SubmissionModule extends AnuraModule implements OptionalModule {
     }
 
     /* ------------------------- */
+
+    @Override
+    public int offset() {
+        return 2;
+    }
 }
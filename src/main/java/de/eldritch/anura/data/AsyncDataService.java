@@ -0,0 +1,254 @@
+package de.eldritch.anura.data;
+
+import de.eldritch.anura.data.entities.Meme;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+/**
+ * A non-blocking view of the {@link DataService}. Every call returns a {@link CompletableFuture} immediately and is
+ * executed on a dedicated executor, so JDA event threads never wait for the database.
+ * <p>The executor has as many threads as the connection pool has connections, more threads would only wait for a
+ * connection. Its queue is bounded: if it is full, calls fail with a {@link RejectedExecutionException} instead of
+ * piling up while the database is slow.
+ * <p>Each call has a timeout (see {@link AsyncDataService#DEFAULT_TIMEOUT}), after which its future completes with a
+ * {@link TimeoutException}. A call that times out or whose future is cancelled is removed from the queue if it has not
+ * started yet, or interrupted if it is still waiting for a connection. A query that is already running on the database
+ * is finished, but its result is discarded.
+ * <p>Futures compose with JDA, e.g. by replying to an interaction once the data has arrived:
+ * <pre>{@code
+ * event.deferReply().queue();
+ * dataService.async().getMemeById(id)
+ *         .thenAccept(meme -> event.getHook().sendMessage(meme.url()).queue())
+ *         .exceptionally(t -> { event.getHook().sendMessage("...").queue(); return null; });
+ * }</pre>
+ * @see DataService#async()
+ */
+public class AsyncDataService {
+    /**
+     * Timeout in milliseconds of all calls that do not specify their own.
+     */
+    public static final long DEFAULT_TIMEOUT = 5000;
+
+    // queued calls per worker thread
+    private static final int QUEUE_FACTOR = 32;
+
+    private final DataService dataService;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder timeouts   = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    AsyncDataService(@NotNull DataService dataService, int threads) throws IllegalArgumentException {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Thread count must be positive.");
+
+        this.dataService = dataService;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_FACTOR), runnable -> {
+            Thread thread = new Thread(runnable, "DataService-Worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /* ---------- CALLS ---------- */
+
+    /**
+     * Executes a call on the {@link DataService} with the {@link AsyncDataService#DEFAULT_TIMEOUT default timeout}.
+     * @param call The call.
+     * @return Future of the result.
+     * @see AsyncDataService#submit(DataCall, long, TimeUnit)
+     */
+    public <T> @NotNull CompletableFuture<T> submit(@NotNull DataCall<T> call) {
+        return this.submit(call, DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes a call on the {@link DataService}. The returned future completes with the result of the call, with the
+     * exception it has thrown, with a {@link TimeoutException} if it took longer than the timeout or with a
+     * {@link RejectedExecutionException} if too many calls are queued. Cancelling the future cancels the call.
+     * @param call The call.
+     * @param timeout Maximum time until the future completes.
+     * @param unit Unit of the timeout.
+     * @return Future of the result.
+     */
+    public <T> @NotNull CompletableFuture<T> submit(@NotNull DataCall<T> call, long timeout, @NotNull TimeUnit unit) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                // timed out or cancelled while queued
+                if (future.isDone()) return;
+
+                try {
+                    future.complete(call.call(dataService));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        future.orTimeout(timeout, unit).whenComplete((result, t) -> {
+            if (t instanceof TimeoutException)
+                timeouts.increment();
+            // only abort the task if it did not complete the future itself
+            if (t instanceof TimeoutException || t instanceof CancellationException) {
+                task.cancel(true);
+                executor.remove((Runnable) task);
+            }
+        });
+        return future;
+    }
+
+    /* ---------- DATA ---------- */
+
+    /**
+     * Provides a specific {@link Meme} determined by its ID. If the meme is cached the returned future is already
+     * completed.
+     * @param id Unique ID of the meme.
+     * @return Future of the meme.
+     * @see DataService#getMemeById(long)
+     */
+    public @NotNull CompletableFuture<Meme> getMemeById(long id) {
+        Meme cached = dataService.getCachedMeme(id);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+        return this.submit(service -> service.getMemeById(id));
+    }
+
+    /**
+     * Provides a random {@link Meme} while possibly excluding multiple entries specified by ID.
+     * @param exclude Array of IDs to exclude.
+     * @return Future of the meme.
+     * @see DataService#getMemeRandom(long[])
+     */
+    public @NotNull CompletableFuture<Meme> getMemeRandom(long[] exclude) {
+        return this.submit(service -> service.getMemeRandom(exclude));
+    }
+
+    /**
+     * Provides the next {@link Meme} of a {@link ShuffleBag}.
+     * @param bag Shuffle state of the requesting guild.
+     * @param recent Tests whether a meme ID has been shown recently.
+     * @return Future of the meme.
+     * @see DataService#getMemeShuffled(ShuffleBag, LongPredicate)
+     */
+    public @NotNull CompletableFuture<Meme> getMemeShuffled(@NotNull ShuffleBag bag, @NotNull LongPredicate recent) {
+        return this.submit(service -> service.getMemeShuffled(bag, recent));
+    }
+
+    /**
+     * Changes the URL of a {@link Meme}.
+     * @param id Unique ID of the meme.
+     * @param url The new URL.
+     * @return Future that completes once the meme has been changed.
+     * @see DataService#updateMemeUrl(long, String)
+     */
+    public @NotNull CompletableFuture<Void> updateMemeUrl(long id, @NotNull String url) {
+        return this.submit(service -> {
+            service.updateMemeUrl(id, url);
+            return null;
+        });
+    }
+
+    /**
+     * Changes the rating of a {@link Meme}.
+     * @param id Unique ID of the meme.
+     * @param rating The new rating.
+     * @return Future that completes once the meme has been changed.
+     * @see DataService#updateMemeRating(long, int)
+     */
+    public @NotNull CompletableFuture<Void> updateMemeRating(long id, int rating) {
+        return this.submit(service -> {
+            service.updateMemeRating(id, rating);
+            return null;
+        });
+    }
+
+    /**
+     * Provides the ID of a row in the <code>modules</code> table that holds the given mask data.
+     * @param data Persisted module mask.
+     * @return Future of the row ID.
+     * @see DataService#getModulesId(long)
+     */
+    public @NotNull CompletableFuture<Integer> getModulesId(long data) {
+        return this.submit(service -> service.getModulesId(data));
+    }
+
+    /**
+     * Provides the mask data of a row in the <code>modules</code> table.
+     * @param id ID of the <code>modules</code> row.
+     * @return Future of the persisted module mask.
+     * @see DataService#getModulesData(int)
+     */
+    public @NotNull CompletableFuture<Long> getModulesData(int id) {
+        return this.submit(service -> service.getModulesData(id));
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Provides the amount of calls that are waiting for a worker thread.
+     * @return Amount of queued calls.
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Provides the total amount of calls that have timed out.
+     * @return Amount of timeouts.
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Provides the total amount of calls that have been rejected because the queue was full.
+     * @return Amount of rejections.
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * Stops accepting calls and waits for queued and running calls to finish.
+     */
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A call on the {@link DataService} that is executed by an {@link AsyncDataService}.
+     * @param <T> Type of the result.
+     */
+    @FunctionalInterface
+    public interface DataCall<T> {
+        T call(@NotNull DataService dataService) throws SQLException;
+    }
+}
@@ -0,0 +1,182 @@
+package de.eldritch.anura.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of JDBC {@link Connection Connections}. At most <code>capacity</code> connections exist at any time,
+ * borrowing blocks until a connection is free or the borrow timeout has passed.
+ * <p>Connections that have been idle for longer than {@link ConnectionPool#VALIDATION_IDLE} or that failed during
+ * their last use are validated before they are handed out and silently replaced if the server dropped them, so callers
+ * never have to handle stale connections themselves. Recently used connections are handed out without validation, as
+ * a validation is an additional round trip to the server.
+ * @see SQLConnector
+ */
+class ConnectionPool {
+    // seconds a validation check may take before the connection is considered broken
+    private static final int VALIDATION_TIMEOUT = 2;
+    // time a connection may be idle before it is validated again
+    private static final long VALIDATION_IDLE = TimeUnit.SECONDS.toNanos(30);
+
+    private final Logger logger;
+
+    private final String url, user, password;
+    private final int capacity;
+    private final long timeoutNanos;
+
+    private final Semaphore permits;
+    private final ArrayBlockingQueue<PooledConnection> idle;
+
+    private volatile boolean closed = false;
+
+    // metrics
+    private final AtomicInteger active     = new AtomicInteger();
+    private final LongAdder     borrows    = new LongAdder();
+    private final LongAdder     timeouts   = new LongAdder();
+    private final LongAdder     reconnects = new LongAdder();
+    private final LongAdder     waitNanos  = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    ConnectionPool(@NotNull Logger logger, @NotNull String url, String user, String password, int capacity, long timeoutMillis) throws IllegalArgumentException {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be higher than 0");
+        if (timeoutMillis < 0)
+            throw new IllegalArgumentException("Timeout may not be negative");
+
+        this.logger       = logger;
+        this.url          = url;
+        this.user         = user;
+        this.password     = password;
+        this.capacity     = capacity;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        this.permits = new Semaphore(capacity, true);
+        this.idle    = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Borrows a valid {@link PooledConnection} from the pool. The connection is returned to the pool by closing it,
+     * which is why it should always be used in a <code>try-with-resources</code> statement.
+     * @return A connection that is known or validated to be working.
+     * @throws SQLTimeoutException if no connection became available within the borrow timeout.
+     * @throws SQLException if the pool is closed, the thread was interrupted or a new connection could not be built.
+     */
+    @NotNull PooledConnection borrow() throws SQLException {
+        if (closed)
+            throw new SQLException("Pool is closed");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("Timed out waiting for a connection (" + capacity + " active)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        long wait = System.nanoTime() - start;
+        waitNanos.add(wait);
+        maxWaitNanos.accumulate(wait);
+        borrows.increment();
+
+        try {
+            PooledConnection connection = idle.poll();
+            if (connection == null || (connection.needsValidation(VALIDATION_IDLE) && !isValid(connection))) {
+                if (connection != null) {
+                    reconnects.increment();
+                    connection.discard();
+                }
+                connection = new PooledConnection(this, connect());
+            }
+            connection.markBorrowed();
+
+            active.incrementAndGet();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool. Called by {@link PooledConnection#close()}.
+     * @param connection The connection that is no longer in use.
+     */
+    void release(@NotNull PooledConnection connection) {
+        active.decrementAndGet();
+
+        // the queue can never be full as there are never more connections than permits
+        if (closed || !idle.offer(connection))
+            connection.discard();
+
+        permits.release();
+    }
+
+    /**
+     * Closes all idle connections and prevents further borrowing. Connections that are currently in use are closed
+     * once they are released.
+     */
+    void close() {
+        closed = true;
+
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null)
+            connection.discard();
+    }
+
+    /* ------------------------- */
+
+    private @NotNull Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+
+        if (!connection.isValid(VALIDATION_TIMEOUT)) {
+            connection.close();
+            throw new SQLException("Connection is invalid");
+        }
+
+        return connection;
+    }
+
+    private boolean isValid(@NotNull PooledConnection connection) {
+        try {
+            return connection.getConnection().isValid(VALIDATION_TIMEOUT);
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Connection validation failed.", e);
+            return false;
+        }
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Provides a snapshot of the current pool metrics.
+     * @return Pool metrics.
+     */
+    @NotNull PoolStats getStats() {
+        long count = borrows.sum();
+        return new PoolStats(
+                capacity,
+                active.get(),
+                idle.size(),
+                count,
+                timeouts.sum(),
+                reconnects.sum(),
+                count == 0 ? 0 : waitNanos.sum() / count,
+                maxWaitNanos.get()
+        );
+    }
+}
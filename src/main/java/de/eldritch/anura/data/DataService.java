@@ -2,135 +2,385 @@ package de.eldritch.anura.data;
 
 import de.eldritch.anura.Anura;
 import de.eldritch.anura.Instance;
+import de.eldritch.anura.data.entities.GuildConfig;
 import de.eldritch.anura.data.entities.Meme;
+import de.eldritch.anura.util.LongConcurrentMap;
+import de.eldritch.anura.util.TopKCounter;
 import de.eldritch.anura.util.logging.NestedLogger;
+import de.eldritch.anura.util.metrics.Metrics;
 import de.eldritch.anura.util.text.Language;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.logging.Level;
 
 /**
  * The database connection to MySQL. This class is only instantiated once by {@link Anura} and provides a connection for
  * all instances.
  * <p>This class should <b>always</b> be thread-safe as multiple {@link Instance} objects may call it simultaneously.
+ * Queries are executed on pooled connections (see {@link ConnectionPool}), so concurrent callers are served in parallel
+ * instead of waiting on a single lock.
  */
 public class DataService {
+    // bounds of the meme cache
+    private static final int  MEME_CACHE_ENTRIES = 4096;
+    private static final long MEME_CACHE_WEIGHT  = 4L * 1024 * 1024;
+
+    /**
+     * Maximum amount of zones provided by {@link DataService#getFrequentTimeZones(Language)}.
+     */
+    public static final int FREQUENT_TIME_ZONES = 25;
+    // amount of zones tracked per language
+    private static final int TIME_ZONE_COUNTERS = 128;
+    private static final List<String> DEFAULT_TIME_ZONES = List.of("UTC", "Europe/Berlin");
+
     private final NestedLogger logger;
     private final SQLConnector sqlConnector;
+    private final MemeIndex memeIndex;
+    private final MemeCache memeCache;
+    private final GuildConfigStore guildConfigStore;
+    private final AsyncDataService async;
 
-    // implement with default values
-    private List<String> recentTimeZoneCache = List.of("UTC", "Europe/Berlin");
+    // interned module masks (data -> id and id -> data)
+    private final LongConcurrentMap<Integer> modulesIds  = new LongConcurrentMap<>();
+    private final ConcurrentHashMap<Integer, Long> modulesData = new ConcurrentHashMap<>();
+
+    // frequently chosen time zones per language
+    private final EnumMap<Language, TopKCounter> timeZoneCounters = new EnumMap<>(Language.class);
 
     public DataService() throws IOException, SQLException, NullPointerException {
         this.logger = new NestedLogger("DataService", Anura.singleton.getLogger());
 
         sqlConnector = new SQLConnector(logger);
+        memeIndex    = new MemeIndex(logger, sqlConnector);
+        memeCache    = new MemeCache(MEME_CACHE_ENTRIES, MEME_CACHE_WEIGHT);
+        guildConfigStore = new GuildConfigStore(logger, sqlConnector, this);
+        async        = new AsyncDataService(this, sqlConnector.getPoolStats().capacity());
+
+        for (Language language : Language.values())
+            timeZoneCounters.put(language, new TopKCounter(TIME_ZONE_COUNTERS, FREQUENT_TIME_ZONES, 2));
+        this.seedTimeZones();
+
+        this.registerGauges();
+    }
+
+    /**
+     * Exposes the pool, cache and queue metrics of this service (see {@link Metrics}).
+     */
+    private void registerGauges() {
+        Metrics.gauge("anura_db_pool_capacity", "Maximum amount of pooled connections.", () -> getPoolStats().capacity());
+        Metrics.gauge("anura_db_pool_active", "Pooled connections that are currently borrowed.", () -> getPoolStats().active());
+        Metrics.gauge("anura_db_pool_idle", "Pooled connections that are open but not borrowed.", () -> getPoolStats().idle());
+        Metrics.derivedCounter("anura_db_pool_borrows_total", "Successful borrows of a pooled connection.", () -> getPoolStats().borrows());
+        Metrics.derivedCounter("anura_db_pool_timeouts_total", "Borrows that timed out waiting for a connection.", () -> getPoolStats().timeouts());
+        Metrics.derivedCounter("anura_db_pool_reconnects_total", "Connections replaced after failing validation.", () -> getPoolStats().reconnects());
+        Metrics.gauge("anura_db_pool_wait_avg_seconds", "Average time a borrow waited for a connection.", () -> getPoolStats().avgWaitNanos() / 1e9);
+        Metrics.gauge("anura_db_pool_wait_max_seconds", "Longest time a borrow waited for a connection.", () -> getPoolStats().maxWaitNanos() / 1e9);
+
+        Metrics.gauge("anura_meme_cache_size", "Memes in the cache.", () -> getMemeCacheStats().size());
+        Metrics.gauge("anura_meme_cache_weight_bytes", "Estimated size of all cached memes.", () -> getMemeCacheStats().weight());
+        Metrics.derivedCounter("anura_meme_cache_hits_total", "Meme requests served from the cache.", () -> getMemeCacheStats().hits());
+        Metrics.derivedCounter("anura_meme_cache_misses_total", "Meme requests that had to query the database.", () -> getMemeCacheStats().misses());
+        Metrics.derivedCounter("anura_meme_cache_evictions_total", "Memes evicted from the cache.", () -> getMemeCacheStats().evictions());
+
+        Metrics.gauge("anura_db_async_queue", "Asynchronous calls waiting for a worker thread.", async::getQueueSize);
+        Metrics.derivedCounter("anura_db_async_timeouts_total", "Asynchronous calls that have timed out.", async::getTimeoutCount);
+        Metrics.derivedCounter("anura_db_async_rejections_total", "Asynchronous calls rejected due to a full queue.", async::getRejectionCount);
+
+        Metrics.gauge("anura_guild_configs_pending", "Guild configs that have not been written yet.", this::getPendingGuildConfigs);
     }
 
     /* ---------- DATA ---------- */
 
     /**
-     * Provides a specific {@link Meme} determined by its ID.
+     * Provides a specific {@link Meme} determined by its ID. Frequently requested memes are served from the
+     * {@link MemeCache} without querying the database.
      * @param id Unique ID of the meme.
      * @return Meme object.
      * @throws SQLException if an SQL error occurs.
      * @throws NullPointerException if the underlying {@link ResultSet} is empty.
      */
-    public synchronized Meme getMemeById(long id) throws SQLException, NullPointerException {
-        ResultSet resultSet = sqlConnector.executeQuery("SELECT * FROM memes WHERE id = " + id + " LIMIT 1");
+    public Meme getMemeById(long id) throws SQLException, NullPointerException {
+        Meme cached = memeCache.get(id);
+        if (cached != null)
+            return cached;
+
+        long generation = memeCache.generation();
+        Meme meme = this.queryMeme(id);
+        memeCache.put(meme, generation);
+        return meme;
+    }
 
-        // check ResultSet
-        if (!resultSet.next())
-            throw new NullPointerException("Could not match id");
+    /**
+     * Provides a {@link Meme} only if it is cached. This does not access the database. A miss is not counted, the caller
+     * is expected to fall back to {@link DataService#getMemeById(long)}, which counts it.
+     * @param id Unique ID of the meme.
+     * @return Cached meme or <code>null</code> if it is not cached.
+     */
+    @Nullable Meme getCachedMeme(long id) {
+        return memeCache.tryGet(id);
+    }
 
+    private @NotNull Meme queryMeme(long id) throws SQLException, NullPointerException {
+        return sqlConnector.executeQuery("meme_by_id", "SELECT * FROM memes WHERE id = ? LIMIT 1", resultSet -> {
+            // check ResultSet
+            if (!resultSet.next())
+                throw new NullPointerException("Could not match id");
+
+            try {
+                // fetch data
+                Language language  = Language.valueOf(resultSet.getString("language"));
+                String   url       = resultSet.getString("url");
+                long     timestamp = resultSet.getLong("timestamp");
+                long     authorID  = resultSet.getLong("author_id");
+                int      rating    = resultSet.getInt("rating");
+
+                return new Meme(id, timestamp, url, language, authorID, rating);
+            } catch (Exception e) {
+                throw new SQLException("Could not retrieve meme", e);
+            }
+        }, id);
+    }
+
+    /**
+     * Changes the URL of a {@link Meme} and removes it from the cache.
+     * @param id Unique ID of the meme.
+     * @param url The new URL.
+     * @throws SQLException if an SQL error occurs.
+     */
+    public void updateMemeUrl(long id, @NotNull String url) throws SQLException {
         try {
-            // fetch data
-            Language language  = Language.valueOf(resultSet.getString("language"));
-            String   url       = resultSet.getString("url");
-            long     timestamp = resultSet.getLong("timestamp");
-            long     authorID  = resultSet.getLong("author_id");
-            int      rating    = resultSet.getInt("rating");
-
-            return new Meme(id, timestamp, url, language, authorID, rating);
-        } catch (Exception e) {
-            throw new SQLException("Could not retrieve meme", e);
+            sqlConnector.execute("meme_update_url", "UPDATE memes SET url = ? WHERE id = ?", url, id);
+        } finally {
+            memeCache.invalidate(id);
         }
     }
 
+    /**
+     * Changes the rating of a {@link Meme} and removes it from the cache.
+     * @param id Unique ID of the meme.
+     * @param rating The new rating.
+     * @throws SQLException if an SQL error occurs.
+     */
+    public void updateMemeRating(long id, int rating) throws SQLException {
+        try {
+            sqlConnector.execute("meme_update_rating", "UPDATE memes SET rating = ? WHERE id = ?", rating, id);
+        } finally {
+            memeCache.invalidate(id);
+        }
+    }
+
+    /**
+     * Removes a {@link Meme} from the cache, e.g. after it has been changed by another process. The next request
+     * reads it from the database again.
+     * @param id Unique ID of the meme.
+     */
+    public void invalidateMeme(long id) {
+        memeCache.invalidate(id);
+    }
+
     /**
      * Provides a random {@link Meme} while possibly excluding multiple entries specified by ID.
+     * <p>The ID is selected from the in-memory {@link MemeIndex}, the database is only queried for the row itself.
      * @param exclude Array of IDs to exclude.
      * @return Meme object.
      * @throws SQLException if an SQL error occurs.
-     * @throws NullPointerException if the underlying {@link ResultSet} is empty.
+     * @throws NullPointerException if no non-excluded meme exists or the underlying {@link ResultSet} is empty.
+     */
+    public Meme getMemeRandom(long[] exclude) throws SQLException, NullPointerException {
+        memeIndex.awaitLoaded();
+        return getMemeById(memeIndex.random(exclude));
+    }
+
+    /**
+     * Provides the next {@link Meme} of a {@link ShuffleBag}. Memes do not repeat until the configured fraction of all
+     * memes has been handed out by that bag, and recently shown memes are skipped across cycles.
+     * @param bag Shuffle state of the requesting guild.
+     * @param recent Tests whether a meme ID has been shown recently.
+     * @return Meme object.
+     * @throws SQLException if an SQL error occurs.
+     * @throws NullPointerException if no meme exists or the underlying {@link ResultSet} is empty.
      */
-    public synchronized Meme getMemeRandom(long[] exclude) throws SQLException, NullPointerException {
-        return getMemeById(generateID(exclude));
+    public Meme getMemeShuffled(@NotNull ShuffleBag bag, @NotNull LongPredicate recent) throws SQLException, NullPointerException {
+        memeIndex.awaitLoaded();
+        return getMemeById(bag.next(memeIndex, recent));
     }
 
+    /* ---------- TIME ZONES ---------- */
+
     /**
-     * Provides a {@link List} of frequently used time-zones. If the SQL-Query fails to execute properly or returns
-     * empty a default list is returned.
-     * <p>"Frequently used" is defined as the top 25 results ordered by amount of uses. Results that only occur once are
-     * excluded as they would represent an exception.
-     * @return List of frequently used TZDB zone IDs.
+     * Counts all stored time zones per language once, so the rankings start with the current state of the database.
      */
-    public synchronized @NotNull List<String> getRecentTimeZones() {
-        String query = "SELECT `timezone` FROM (SELECT `timezone`, COUNT(`timezone`) AS `count` FROM customers GROUP BY `timezone`) AS `frequent` WHERE `count` > 1 ORDER BY `count` DESC LIMIT 25";
+    private void seedTimeZones() {
+        String query = "SELECT `language`, `timezone`, COUNT(*) FROM `guilds` GROUP BY `language`, `timezone`";
 
         try {
-            ResultSet resultSet = sqlConnector.executeQuery(query);
-            List<String> frequent = new ArrayList<>();
+            sqlConnector.executeQuery("time_zones_seed", query, resultSet -> {
+                while (resultSet.next()) {
+                    Language language = Language.fromCode(resultSet.getString(1));
+                    if (language != null)
+                        timeZoneCounters.get(language).offer(resultSet.getString(2), resultSet.getLong(3));
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Unable to seed time zone rankings.", e);
+        }
+    }
 
-            // abort if query returns empty
-            if (!resultSet.next())
-                throw new NullPointerException();
+    /**
+     * Counts a time zone that has been chosen by a guild of an instance. This does not access the database.
+     * @param language Language of the instance.
+     * @param zoneId TZDB zone ID.
+     */
+    public void recordTimeZone(@NotNull Language language, @NotNull String zoneId) {
+        timeZoneCounters.get(language).offer(zoneId);
+    }
 
-            // pass data to list
-            do {
-                frequent.add(resultSet.getString(1));
-            } while (resultSet.next());
+    /**
+     * Provides the time zones that are chosen most frequently by guilds of an instance, most frequent first. This does
+     * not access the database or lock, the ranking is kept in memory (see {@link TopKCounter}).
+     * <p>At most {@link DataService#FREQUENT_TIME_ZONES} zones are returned. Zones that have been chosen only once are
+     * excluded as they would represent an exception. If no zone qualifies a default list is returned.
+     * @param language Language of the instance.
+     * @return Immutable list of frequently used TZDB zone IDs.
+     */
+    public @NotNull List<String> getFrequentTimeZones(@NotNull Language language) {
+        List<String> frequent = timeZoneCounters.get(language).snapshot();
+        return frequent.isEmpty() ? DEFAULT_TIME_ZONES : frequent;
+    }
 
-            recentTimeZoneCache = frequent;
+    /* ---------- GUILDS ---------- */
 
-            return frequent;
-        } catch (Exception e) {
-            // return cache
-            return recentTimeZoneCache;
-        }
+    /**
+     * Streams all stored {@link GuildConfig GuildConfigs} of a bot to a consumer with a single query. This is meant to
+     * be called once when an instance starts.
+     * @param botId Snowflake ID of the bot user.
+     * @param consumer Consumer for each config.
+     * @return Amount of loaded configs.
+     * @throws SQLException if an SQL error occurs.
+     */
+    public int loadGuildConfigs(long botId, @NotNull Consumer<GuildConfig> consumer) throws SQLException {
+        return guildConfigStore.loadAll(botId, consumer);
+    }
+
+    /**
+     * Queues a {@link GuildConfig} to be written to the database. This does not block: the config is written by a
+     * background thread shortly after, together with other pending configs. If the same guild is saved again before
+     * that, only the latest config is written.
+     * @param config The config.
+     */
+    public void saveGuildConfig(@NotNull GuildConfig config) {
+        guildConfigStore.save(config);
+    }
+
+    /**
+     * Provides the amount of {@link GuildConfig GuildConfigs} that have been saved but not yet written.
+     * @return Amount of pending configs.
+     */
+    public int getPendingGuildConfigs() {
+        return guildConfigStore.getPendingCount();
+    }
+
+    /* ---------- MODULES ---------- */
+
+    /**
+     * Provides the ID of a row in the <code>modules</code> table that holds the given mask data, creating it if
+     * necessary. Each distinct mask is stored only once and referenced by <code>guilds.modules_id</code>, so most guilds
+     * share a handful of rows. IDs are cached after the first lookup.
+     * @param data Persisted module mask (see {@link de.eldritch.anura.core.module.ModuleMask#toData(long)}).
+     * @return ID of the <code>modules</code> row.
+     * @throws SQLException if an SQL error occurs.
+     */
+    public int getModulesId(long data) throws SQLException {
+        Integer cached = modulesIds.get(data);
+        if (cached != null)
+            return cached;
+
+        Integer id = sqlConnector.executeQuery("modules_id", "SELECT `id` FROM `modules` WHERE `data` = ? ORDER BY `id` LIMIT 1",
+                resultSet -> resultSet.next() ? resultSet.getInt(1) : null, data);
+        if (id == null)
+            id = (int) sqlConnector.executeInsert("modules_insert", "INSERT INTO `modules` (`data`) VALUES (?) ON DUPLICATE KEY UPDATE `id` = LAST_INSERT_ID(`id`)", data);
+
+        modulesIds.put(data, id);
+        modulesData.put(id, data);
+        return id;
     }
 
-    public @NotNull List<String> getRecentTimeZoneCache() {
-        return List.copyOf(recentTimeZoneCache);
+    /**
+     * Provides the mask data of a row in the <code>modules</code> table. Results are cached.
+     * @param id ID of the <code>modules</code> row.
+     * @return Persisted module mask.
+     * @throws SQLException if an SQL error occurs.
+     * @throws NullPointerException if no row with that ID exists.
+     */
+    public long getModulesData(int id) throws SQLException, NullPointerException {
+        Long cached = modulesData.get(id);
+        if (cached != null)
+            return cached;
+
+        long data = sqlConnector.executeQuery("modules_data", "SELECT `data` FROM `modules` WHERE `id` = ? LIMIT 1", resultSet -> {
+            if (!resultSet.next())
+                throw new NullPointerException("Could not match id");
+            return resultSet.getLong(1);
+        }, id);
+
+        modulesData.put(id, data);
+        modulesIds.put(data, id);
+        return data;
     }
 
     /* ------------------------- */
 
     /**
-     * Queries the SQL database for a random meme entry ID while possibly excluding multiple entries specified by ID.
-     * @param exclude Array of IDs to exclude.
-     * @return ID of the entry that doesn't match any of the IDs in the given array.
-     * @throws SQLException if an SQL error occurs
-     * @throws NullPointerException if the {@link ResultSet} is empty.
-     */
-    private long generateID(long[] exclude) throws SQLException, NullPointerException {
-        StringBuilder strBuilder = new StringBuilder();
-        for (int i = 0; i < exclude.length; i++) {
-            strBuilder.append(" id != ").append(exclude[i]);
-            if (i != exclude.length - 1)
-                strBuilder.append(" AND");
-        }
+     * Provides the non-blocking view of this service, which should be used by event listeners.
+     * @return Async facade of this service.
+     * @see AsyncDataService
+     */
+    public @NotNull AsyncDataService async() {
+        return async;
+    }
 
-        ResultSet resultSet = sqlConnector.executeQuery("SELECT id FROM memes WHERE " + strBuilder.toString() + " ORDER BY RAND() LIMIT 1");
+    /**
+     * Provides the in-memory {@link MemeIndex} of all meme IDs.
+     * @return Meme index.
+     */
+    public @NotNull MemeIndex getMemeIndex() {
+        return memeIndex;
+    }
+
+    /**
+     * Provides a snapshot of the meme cache metrics (hits, misses, evictions).
+     * @return Cache metrics.
+     */
+    public @NotNull MemeCacheStats getMemeCacheStats() {
+        return memeCache.getStats();
+    }
 
-        // check ResultSet
-        if (!resultSet.next())
-            throw new NullPointerException("Could not find non-excluded id");
+    /**
+     * Provides a snapshot of the connection pool metrics (active and idle connections, borrow wait times).
+     * @return Pool metrics.
+     */
+    public @NotNull PoolStats getPoolStats() {
+        return sqlConnector.getPoolStats();
+    }
 
-        return resultSet.getLong("id");
+    /**
+     * Finishes all asynchronous calls, writes all pending guild configs and closes all database connections. Should only
+     * be called once the application is shutting down.
+     */
+    public void shutdown() {
+        async.shutdown();
+        memeIndex.shutdown();
+        guildConfigStore.shutdown();
+        sqlConnector.close();
     }
 }
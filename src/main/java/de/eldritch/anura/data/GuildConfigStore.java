@@ -0,0 +1,149 @@
+package de.eldritch.anura.data;
+
+import de.eldritch.anura.core.module.ModuleMask;
+import de.eldritch.anura.data.entities.GuildConfig;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads and writes the <code>guilds</code> table.
+ * <p>All guilds of a bot are read with a single streamed query when its instance starts. Changes are written behind:
+ * {@link GuildConfigStore#save(GuildConfig)} only replaces the pending config of that guild (so repeated changes are
+ * coalesced into one write) and returns immediately. A background thread periodically writes all pending configs as
+ * batched upserts. Configs that could not be written are queued again unless a newer config has been saved meanwhile.
+ */
+class GuildConfigStore {
+    // time between two flushes
+    private static final long FLUSH_INTERVAL = 2000;
+    // maximum amount of rows per batch
+    private static final int BATCH_SIZE = 100;
+
+    private static final String SELECT = "SELECT `guilds`.`id`, `guilds`.`language`, `guilds`.`timezone`, `modules`.`data` FROM `guilds` "
+            + "LEFT JOIN `modules` ON `modules`.`id` = `guilds`.`modules_id` WHERE `guilds`.`bot_id` = ?";
+    private static final String UPSERT = "INSERT INTO `guilds` (`id`, `bot_id`, `language`, `modules_id`, `timezone`) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE `language` = VALUES(`language`), `modules_id` = VALUES(`modules_id`), `timezone` = VALUES(`timezone`)";
+
+    private final Logger logger;
+    private final SQLConnector sqlConnector;
+    private final DataService dataService;
+
+    private final ConcurrentHashMap<Key, GuildConfig> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    GuildConfigStore(@NotNull Logger logger, @NotNull SQLConnector sqlConnector, @NotNull DataService dataService) {
+        this.logger       = logger;
+        this.sqlConnector = sqlConnector;
+        this.dataService  = dataService;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GuildConfigStore-Flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Streams all stored guild configs of a bot to a consumer.
+     * @param botId Snowflake ID of the bot user.
+     * @param consumer Consumer for each config.
+     * @return Amount of configs.
+     * @throws SQLException if an SQL error occurs.
+     */
+    int loadAll(long botId, @NotNull Consumer<GuildConfig> consumer) throws SQLException {
+        return sqlConnector.executeStreamed("guilds_load", SELECT, row -> {
+            long modules = row.getLong(4);
+            // a missing modules row means nothing has been configured yet
+            if (row.wasNull())
+                modules = ModuleMask.toData(ModuleMask.ALL);
+
+            consumer.accept(new GuildConfig(row.getLong(1), botId, row.getString(2), modules, row.getString(3)));
+        }, botId);
+    }
+
+    /**
+     * Queues a config to be written. Any config of the same guild and bot that has not been written yet is replaced.
+     * @param config The config.
+     */
+    void save(@NotNull GuildConfig config) {
+        pending.put(new Key(config.guildId(), config.botId()), config);
+    }
+
+    /**
+     * Writes all pending configs.
+     * @throws SQLException if an SQL error occurs. Configs that have not been written are queued again.
+     */
+    synchronized void flush() throws SQLException {
+        List<GuildConfig> batch = new ArrayList<>(BATCH_SIZE);
+
+        Iterator<Map.Entry<Key, GuildConfig>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, GuildConfig> entry = iterator.next();
+            // only remove if no newer config has been saved in the meantime
+            if (pending.remove(entry.getKey(), entry.getValue()))
+                batch.add(entry.getValue());
+
+            if (batch.size() == BATCH_SIZE || (!iterator.hasNext() && !batch.isEmpty())) {
+                try {
+                    this.write(batch);
+                } catch (SQLException e) {
+                    for (GuildConfig config : batch)
+                        pending.putIfAbsent(new Key(config.guildId(), config.botId()), config);
+                    throw e;
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(@NotNull List<GuildConfig> batch) throws SQLException {
+        List<Object[]> params = new ArrayList<>(batch.size());
+        for (GuildConfig config : batch)
+            params.add(new Object[]{ config.guildId(), config.botId(), config.language(), dataService.getModulesId(config.modules()), config.timeZone() });
+
+        sqlConnector.executeBatch("guilds_upsert", UPSERT, params);
+    }
+
+    private void flushQuietly() {
+        try {
+            this.flush();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Unable to write guild configs. " + pending.size() + " are pending.", e);
+        }
+    }
+
+    /**
+     * Provides the amount of configs that have not been written yet.
+     * @return Amount of pending configs.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops the background thread and writes all pending configs.
+     */
+    void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.flushQuietly();
+    }
+
+    private record Key(long guildId, long botId) { }
+}
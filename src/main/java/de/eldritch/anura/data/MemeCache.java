@@ -0,0 +1,295 @@
+package de.eldritch.anura.data;
+
+import de.eldritch.anura.data.entities.Meme;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of {@link Meme} records keyed by their primitive <code>long</code> ID, shared by all instances through
+ * the {@link DataService}.
+ * <p>Eviction follows a <i>segmented LRU</i> policy: new entries are put into a probationary segment and are only
+ * promoted to the protected segment (80% of the capacity) once they are requested again. Entries are always evicted
+ * from the probationary segment first, so a scan over many memes that are requested only once can not push out the
+ * popular ones.
+ * <p>The cache is bounded by the amount of entries as well as by their total weight (an estimate of their size in
+ * bytes). All operations take constant time and are guarded by a single lock, which is only held for a few pointer
+ * updates.
+ * @see DataService#getMemeById(long)
+ */
+public class MemeCache {
+    // share of the capacity reserved for entries that have been requested more than once
+    private static final float PROTECTED_FRACTION = 0.8f;
+
+    private final int  maxEntries;
+    private final long maxWeight;
+    private final int  maxProtected;
+
+    // hash index (chained, power of two)
+    private Node[] table;
+    private int size;
+    private long weight;
+
+    // segments as doubly linked lists, head is the most recently used entry
+    private final Node probation = Node.sentinel();
+    private final Node protect   = Node.sentinel();
+    private int protectedSize;
+
+    // incremented by every invalidation, used to detect data that has been read before an invalidation
+    private long generation;
+
+    private final LongAdder hits          = new LongAdder();
+    private final LongAdder misses        = new LongAdder();
+    private final LongAdder evictions     = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creates a new MemeCache.
+     * @param maxEntries Maximum amount of memes.
+     * @param maxWeight Maximum total weight of all memes (see {@link MemeCache#weigh(Meme)}).
+     * @throws IllegalArgumentException if one of the bounds is not positive.
+     */
+    MemeCache(int maxEntries, long maxWeight) throws IllegalArgumentException {
+        if (maxEntries <= 0 || maxWeight <= 0)
+            throw new IllegalArgumentException("Bounds must be positive.");
+
+        this.maxEntries   = maxEntries;
+        this.maxWeight    = maxWeight;
+        this.maxProtected = Math.max(1, (int) (maxEntries * PROTECTED_FRACTION));
+
+        this.table = new Node[Integer.highestOneBit(Math.max(16, maxEntries * 2 - 1)) << 1];
+    }
+
+    /* ---------- ACCESS ---------- */
+
+    /**
+     * Provides a cached meme and marks it as recently used.
+     * @param id ID of the meme.
+     * @return Cached meme or <code>null</code> if it is not cached.
+     */
+    public @Nullable Meme get(long id) {
+        return this.get(id, true);
+    }
+
+    /**
+     * Provides a cached meme like {@link MemeCache#get(long)}, but does not count a miss. This is meant for a fast path
+     * that falls back to {@link MemeCache#get(long)} on a miss, so every request is counted exactly once.
+     * @param id ID of the meme.
+     * @return Cached meme or <code>null</code> if it is not cached.
+     */
+    @Nullable Meme tryGet(long id) {
+        return this.get(id, false);
+    }
+
+    private synchronized @Nullable Meme get(long id, boolean countMiss) {
+        Node node = find(id);
+        if (node == null) {
+            if (countMiss)
+                misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        unlink(node);
+        if (node.isProtected) {
+            linkFirst(protect, node);
+        } else {
+            // second request: promote
+            node.isProtected = true;
+            protectedSize++;
+            linkFirst(protect, node);
+
+            // demote the least recently used protected entry if the segment is full
+            if (protectedSize > maxProtected) {
+                Node demoted = protect.prev;
+                unlink(demoted);
+                demoted.isProtected = false;
+                protectedSize--;
+                linkFirst(probation, demoted);
+            }
+        }
+        return node.meme;
+    }
+
+    /**
+     * Provides the current generation of the cache. Read this before loading a meme and pass it to
+     * {@link MemeCache#put(Meme, long)}, so a meme that has been invalidated while it was loaded is not cached.
+     * @return Current generation.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Adds a meme to the cache or replaces the cached meme with the same ID, unless any meme has been invalidated since
+     * the given generation.
+     * @param meme The meme.
+     * @param generation Generation at the time the meme has been loaded.
+     * @see MemeCache#generation()
+     */
+    public synchronized void put(@NotNull Meme meme, long generation) {
+        if (generation != this.generation) return;
+        this.put(meme);
+    }
+
+    /**
+     * Adds a meme to the cache or replaces the cached meme with the same ID.
+     * @param meme The meme.
+     */
+    public synchronized void put(@NotNull Meme meme) {
+        long w = weigh(meme);
+        if (w > maxWeight) {
+            // too large to be cached, but an older version must not stay
+            remove(meme.id());
+            return;
+        }
+
+        Node node = find(meme.id());
+        if (node != null) {
+            weight += w - node.weight;
+            node.meme   = meme;
+            node.weight = w;
+        } else {
+            node = new Node(meme, w);
+            insert(node);
+            linkFirst(probation, node);
+            size++;
+            weight += w;
+        }
+
+        this.evict();
+    }
+
+    /**
+     * Removes a meme from the cache. This should be called whenever a meme is changed (e.g. its rating or URL), so the
+     * next request reads the new data.
+     * @param id ID of the meme.
+     */
+    public synchronized void invalidate(long id) {
+        generation++;
+        Node node = remove(id);
+        if (node != null)
+            invalidations.increment();
+    }
+
+    /**
+     * Removes all memes from the cache.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.add(size);
+
+        table = new Node[table.length];
+        probation.next = probation.prev = probation;
+        protect.next   = protect.prev   = protect;
+        size = protectedSize = 0;
+        weight = 0;
+    }
+
+    /**
+     * Provides a snapshot of the cache metrics.
+     * @return Cache metrics.
+     */
+    public @NotNull MemeCacheStats getStats() {
+        int  size;
+        long weight;
+        synchronized (this) {
+            size   = this.size;
+            weight = this.weight;
+        }
+        return new MemeCacheStats(maxEntries, maxWeight, size, weight, hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    /**
+     * Estimates the size of a meme in bytes.
+     * @param meme The meme.
+     * @return Estimated size.
+     */
+    static long weigh(@NotNull Meme meme) {
+        // object headers and fields + UTF-16 URL
+        return 96 + 2L * meme.url().length();
+    }
+
+    /* ---------- INTERNAL ---------- */
+
+    private void evict() {
+        while (size > maxEntries || weight > maxWeight) {
+            Node victim = probation.prev != probation ? probation.prev : protect.prev;
+            remove(victim.meme.id());
+            evictions.increment();
+        }
+    }
+
+    private @Nullable Node find(long id) {
+        for (Node node = table[index(id)]; node != null; node = node.nextInBucket)
+            if (node.meme.id() == id)
+                return node;
+        return null;
+    }
+
+    private void insert(@NotNull Node node) {
+        int i = index(node.meme.id());
+        node.nextInBucket = table[i];
+        table[i] = node;
+    }
+
+    private @Nullable Node remove(long id) {
+        int i = index(id);
+        Node prev = null;
+        for (Node node = table[i]; node != null; prev = node, node = node.nextInBucket) {
+            if (node.meme.id() != id) continue;
+
+            if (prev == null)
+                table[i] = node.nextInBucket;
+            else
+                prev.nextInBucket = node.nextInBucket;
+
+            unlink(node);
+            if (node.isProtected)
+                protectedSize--;
+            size--;
+            weight -= node.weight;
+            return node;
+        }
+        return null;
+    }
+
+    private int index(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (table.length - 1);
+    }
+
+    private static void linkFirst(@NotNull Node list, @NotNull Node node) {
+        node.prev = list;
+        node.next = list.next;
+        list.next.prev = node;
+        list.next = node;
+    }
+
+    private static void unlink(@NotNull Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+    }
+
+    private static final class Node {
+        Meme meme;
+        long weight;
+        boolean isProtected;
+
+        Node prev, next;
+        Node nextInBucket;
+
+        Node(Meme meme, long weight) {
+            this.meme   = meme;
+            this.weight = weight;
+        }
+
+        static @NotNull Node sentinel() {
+            Node node = new Node(null, 0);
+            node.prev = node.next = node;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package de.eldritch.anura.data;
+
+/**
+ * A snapshot of the metrics of the {@link MemeCache}.
+ * @param maxEntries Maximum amount of cached memes.
+ * @param maxWeight Maximum total weight of cached memes.
+ * @param size Amount of currently cached memes.
+ * @param weight Current total weight of cached memes.
+ * @param hits Total amount of requests that have been answered from the cache.
+ * @param misses Total amount of requests that had to query the database.
+ * @param evictions Total amount of memes that have been removed to stay within the bounds.
+ * @param invalidations Total amount of memes that have been removed because they changed.
+ * @see DataService#getMemeCacheStats()
+ */
+public record MemeCacheStats(int maxEntries, long maxWeight, int size, long weight, long hits, long misses, long evictions, long invalidations) {
+    /**
+     * Provides the share of requests that have been answered from the cache.
+     * @return Hit rate between 0 and 1.
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,230 @@
+package de.eldritch.anura.data;
+
+import de.eldritch.anura.util.IDUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An in-memory index of all meme IDs, used to select random memes without asking the database to sort the whole table.
+ * <p>The IDs are stored as a sorted primitive array that is replaced (copy-on-write) whenever it changes, so readers
+ * never have to lock. A background thread keeps the index up to date: As IDs are handed out in ascending order new
+ * memes are fetched incrementally by only querying IDs near or above the current maximum. IDs are generated before
+ * they are committed (possibly by another process), so the incremental query also re-reads the last
+ * {@link MemeIndex#OVERLAP} of Snowflake time below the maximum to pick up memes that have been committed late. Deleted
+ * memes are only noticed by the less frequent full refresh.
+ * <p>The position of an ID in the array is its <i>dense index</i>. Dense indices are stable between two full
+ * refreshes, except for the newest memes: A meme that has been committed late is inserted in front of the memes that
+ * have been generated after it. A full refresh shifts the indices of all memes that follow a deleted one.
+ * @see DataService#getMemeRandom(long[])
+ */
+public class MemeIndex {
+    private static final long INCREMENTAL_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final long FULL_INTERVAL        = TimeUnit.HOURS.toMillis(1);
+    // Snowflake time below the current maximum that is read again by every incremental refresh
+    private static final long OVERLAP = TimeUnit.SECONDS.toMillis(30);
+
+    // attempts to randomly hit a non-excluded ID before falling back to a linear scan
+    private static final int MAX_ATTEMPTS = 16;
+
+    private final Logger logger;
+    private final SQLConnector sqlConnector;
+    private final ScheduledExecutorService refresher;
+
+    private volatile long[]  ids    = new long[0];
+    private volatile boolean loaded = false;
+
+    // only accessed while holding the monitor
+    private long lastFull = 0;
+
+    MemeIndex(@NotNull Logger logger, @NotNull SQLConnector sqlConnector) {
+        this.logger       = logger;
+        this.sqlConnector = sqlConnector;
+
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MemeIndex-Refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, INCREMENTAL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /* ---------- REFRESH ---------- */
+
+    /**
+     * Makes sure the index has been loaded at least once. This only blocks until the initial load has finished, all
+     * further refreshes happen in the background.
+     * @throws SQLException if an SQL error occurs during the initial load.
+     */
+    void awaitLoaded() throws SQLException {
+        if (loaded) return;
+
+        synchronized (this) {
+            if (!loaded)
+                this.refresh();
+        }
+    }
+
+    /**
+     * Refreshes the index. A full reload is performed once per {@link MemeIndex#FULL_INTERVAL}, otherwise only IDs
+     * that have been generated at most {@link MemeIndex#OVERLAP} before the current maximum are fetched and merged.
+     * @throws SQLException if an SQL error occurs.
+     */
+    synchronized void refresh() throws SQLException {
+        long now = System.currentTimeMillis();
+
+        if (!loaded || now - lastFull >= FULL_INTERVAL) {
+            this.ids = sqlConnector.executeQuery("meme_ids", "SELECT id FROM memes", resultSet -> {
+                LongList list = new LongList();
+                while (resultSet.next())
+                    list.add(resultSet.getLong(1));
+                return list.toSortedArray();
+            });
+
+            lastFull = now;
+            loaded   = true;
+        } else {
+            long[] current = this.ids;
+            long   from    = current.length == 0 ? 0 : IDUtil.getLowestID(IDUtil.getTimestamp(current[current.length - 1]) - OVERLAP);
+
+            long[] recent = sqlConnector.executeQuery("meme_ids_since", "SELECT id FROM memes WHERE id >= ?", resultSet -> {
+                LongList list = new LongList();
+                while (resultSet.next())
+                    list.add(resultSet.getLong(1));
+                return list.toSortedArray();
+            }, from);
+
+            long[] next = merge(current, recent, from);
+            if (next != null)
+                this.ids = next;
+        }
+    }
+
+    /**
+     * Merges the IDs of an incremental refresh into the tail of the index that starts at <code>from</code>.
+     * @return The merged index or <code>null</code> if no ID is new.
+     */
+    private static long[] merge(long[] current, long[] recent, long from) {
+        int start = Arrays.binarySearch(current, from);
+        if (start < 0) start = -start - 1;
+
+        // IDs below start are kept, the tail is the union of both (deletions are left to the full refresh)
+        LongList list = new LongList();
+        int i = start, j = 0;
+        while (i < current.length || j < recent.length) {
+            if (j == recent.length || (i < current.length && current[i] < recent[j])) {
+                list.add(current[i++]);
+            } else {
+                if (i < current.length && current[i] == recent[j]) i++;
+                list.add(recent[j++]);
+            }
+        }
+
+        long[] tail = list.toSortedArray();
+        if (tail.length == current.length - start)
+            return null;
+
+        long[] next = Arrays.copyOf(current, start + tail.length);
+        System.arraycopy(tail, 0, next, start, tail.length);
+        return next;
+    }
+
+    private void refreshQuietly() {
+        try {
+            this.refresh();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Unable to refresh meme index.", e);
+        }
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /* ---------- ACCESS ---------- */
+
+    /**
+     * Provides the amount of indexed memes.
+     * @return Amount of IDs.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Provides the ID at a dense index.
+     * @param index Dense index (<code>0 &lt;= index &lt; size()</code>).
+     * @return Meme ID.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public long get(int index) throws IndexOutOfBoundsException {
+        return ids[index];
+    }
+
+    /**
+     * Selects a random ID that is not contained in <code>exclude</code>. The exclusion list is sorted once, so each
+     * candidate is checked by a binary search. As long as the exclusion list is small compared to the index this takes
+     * constant expected time.
+     * @param exclude IDs to exclude.
+     * @return Random non-excluded ID.
+     * @throws NullPointerException if every indexed ID is excluded.
+     */
+    public long random(long[] exclude) throws NullPointerException {
+        long[] snapshot = this.ids;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (snapshot.length == 0)
+            throw new NullPointerException("Could not find non-excluded id");
+
+        long[] excluded = exclude.clone();
+        Arrays.sort(excluded);
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            long id = snapshot[random.nextInt(snapshot.length)];
+            if (Arrays.binarySearch(excluded, id) < 0)
+                return id;
+        }
+
+        // almost everything is excluded: pick from a random offset to stay fair-ish
+        int offset = random.nextInt(snapshot.length);
+        for (int i = 0; i < snapshot.length; i++) {
+            long id = snapshot[(offset + i) % snapshot.length];
+            if (Arrays.binarySearch(excluded, id) < 0)
+                return id;
+        }
+
+        throw new NullPointerException("Could not find non-excluded id");
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Minimal growable <code>long</code> list to collect IDs from a {@link java.sql.ResultSet} without boxing.
+     */
+    private static final class LongList {
+        private long[] arr = new long[64];
+        private int size = 0;
+
+        void add(long l) {
+            if (size == arr.length)
+                arr = Arrays.copyOf(arr, arr.length * 2);
+            arr[size++] = l;
+        }
+
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(arr, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package de.eldritch.anura.data;
+
+/**
+ * A snapshot of the metrics of the database connection pool.
+ * @param capacity Maximum amount of connections.
+ * @param active Connections that are currently borrowed.
+ * @param idle Connections that are open but not borrowed.
+ * @param borrows Total amount of successful borrows.
+ * @param timeouts Total amount of borrows that timed out.
+ * @param reconnects Total amount of connections that had to be replaced after failing validation.
+ * @param avgWaitNanos Average time a borrow had to wait for a free connection.
+ * @param maxWaitNanos Longest time a borrow had to wait for a free connection.
+ * @see DataService#getPoolStats()
+ */
+public record PoolStats(int capacity, int active, int idle, long borrows, long timeouts, long reconnects, long avgWaitNanos, long maxWaitNanos) { }
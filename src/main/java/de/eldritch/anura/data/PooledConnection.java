@@ -0,0 +1,129 @@
+package de.eldritch.anura.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Connection} that has been borrowed from a {@link ConnectionPool}. Closing this object returns the underlying
+ * connection to the pool instead of closing it.
+ * <p>Each connection keeps a small LRU cache of {@link PreparedStatement PreparedStatements} keyed by their SQL text, so
+ * the server only has to parse and plan a query once per connection.
+ */
+class PooledConnection implements AutoCloseable {
+    // maximum amount of cached statements per connection
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+
+    // set once this connection has been returned, so closing it twice does not return it twice
+    private final AtomicBoolean returned = new AtomicBoolean(false);
+    // System.nanoTime() of the last return to the pool
+    private volatile long releasedAt = System.nanoTime();
+    // whether an SQLException occurred while this connection was borrowed the last time
+    private volatile boolean failed = false;
+
+    // only accessed by the thread that currently borrows this connection
+    private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= STATEMENT_CACHE_SIZE)
+                return false;
+
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    };
+
+    PooledConnection(@NotNull ConnectionPool pool, @NotNull Connection connection) {
+        this.pool       = pool;
+        this.connection = connection;
+    }
+
+    @NotNull Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Marks this connection as borrowed again. Called by the {@link ConnectionPool} before it is handed out.
+     */
+    void markBorrowed() {
+        failed = false;
+        returned.set(false);
+    }
+
+    /**
+     * Marks this connection as possibly broken, so it is validated before it is handed out again.
+     */
+    void markFailed() {
+        failed = true;
+    }
+
+    /**
+     * Checks whether this connection should be validated before it is handed out. This is the case if it failed during
+     * its last use or has been idle for too long, as the server may have dropped it in the meantime.
+     * @param maxIdleNanos Time a connection may be idle without being validated.
+     * @return true if the connection should be validated.
+     */
+    boolean needsValidation(long maxIdleNanos) {
+        return failed || System.nanoTime() - releasedAt > maxIdleNanos;
+    }
+
+    /**
+     * Provides a {@link PreparedStatement} for the given SQL text. If this connection has already prepared the same
+     * statement the cached object is returned with its parameters cleared. Cached statements must not be closed by the
+     * caller.
+     * @param sql SQL text with <code>?</code> placeholders.
+     * @return Prepared statement.
+     * @throws SQLException if the statement could not be prepared.
+     */
+    @NotNull PreparedStatement prepare(@NotNull String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            return statement;
+        }
+
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Actually closes the underlying {@link Connection} and all cached statements. Only called by the
+     * {@link ConnectionPool} once the connection is broken or the pool is closed.
+     */
+    void discard() {
+        statements.values().forEach(PooledConnection::closeQuietly);
+        statements.clear();
+
+        try {
+            connection.close();
+        } catch (SQLException ignored) { }
+    }
+
+    private static void closeQuietly(@NotNull PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) { }
+    }
+
+    /**
+     * Returns this connection to its {@link ConnectionPool}. Further calls have no effect until it is borrowed again.
+     */
+    @Override
+    public void close() {
+        if (!returned.compareAndSet(false, true))
+            return;
+
+        releasedAt = System.nanoTime();
+        pool.release(this);
+    }
+}
@@ -1,37 +1,74 @@
 package de.eldritch.anura.data;
 
 import de.eldritch.anura.Anura;
+import de.eldritch.anura.util.metrics.LatencyHistogram;
+import de.eldritch.anura.util.metrics.Metric;
+import de.eldritch.anura.util.metrics.Metrics;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.PreparedStatement;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 class SQLConnector {
+    private static final int  DEFAULT_POOL_SIZE    = 4;
+    private static final long DEFAULT_POOL_TIMEOUT = 5000;
+
+    // timings per query name (including the wait for a pooled connection)
+    private static final ConcurrentHashMap<String, Timing> TIMINGS = new ConcurrentHashMap<>();
+
     private final Logger logger;
 
     // sql data
-    private Connection connection;
+    private ConnectionPool pool;
     private String address, database, password, user;
     private int port;
 
+    // pool config
+    private int poolSize;
+    private long poolTimeout;
+
     // table templates
     private static final String[] TEMPLATES = {
             /* All the memes... ALL OF THEM MUHAHAHAHAHA */
-            "`memes` ( `id` VARCHAR(36) NOT NULL , `timestamp` TIMESTAMP NOT NULL , `url` TEXT NOT NULL , `language` TEXT NULL , `author_id` BIGINT NOT NULL , PRIMARY KEY (`id`))",
+            "`memes` ( `id` BIGINT NOT NULL , `timestamp` TIMESTAMP NOT NULL , `url` TEXT NOT NULL , `language` TEXT NULL , `author_id` BIGINT NOT NULL , `rating` INT NOT NULL DEFAULT 0 , PRIMARY KEY (`id`))",
 
             /* Member guilds with their associated bot user ID and the chosen language and time zone. */
             "`guilds` ( `id` BIGINT NOT NULL , `bot_id` BIGINT NOT NULL , `language` TEXT NOT NULL , `modules_id` INT NOT NULL , `timezone` TEXT NOT NULL , PRIMARY KEY (`id`, `bot_id`))",
 
             /* All module configurations (enabled / disabled) for each instance & guild. */
-            "`modules` ( `id` SMALLINT NOT NULL AUTO_INCREMENT , `data` BIGINT NOT NULL , PRIMARY KEY (`id`))"
+            "`modules` ( `id` SMALLINT NOT NULL AUTO_INCREMENT , `data` BIGINT NOT NULL , PRIMARY KEY (`id`) , UNIQUE (`data`))"
+    };
+
+    // changes to tables that may have been created from an older template
+    private static final Migration[] MIGRATIONS = {
+            /* IDs are Snowflake IDs, comparing them as text (or DOUBLE) would not use the primary key. */
+            new Migration("memes.id BIGINT",
+                    "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'memes' AND COLUMN_NAME = 'id' AND DATA_TYPE = 'bigint'",
+                    "ALTER TABLE `memes` MODIFY `id` BIGINT NOT NULL"),
+
+            new Migration("memes.rating",
+                    "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'memes' AND COLUMN_NAME = 'rating'",
+                    "ALTER TABLE `memes` ADD `rating` INT NOT NULL DEFAULT 0"),
+
+            /* Duplicate masks are merged into the row with the lowest ID before the key can be added. */
+            new Migration("modules.data UNIQUE",
+                    "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'modules' AND COLUMN_NAME = 'data' AND NON_UNIQUE = 0",
+                    "UPDATE `guilds` JOIN `modules` ON `modules`.`id` = `guilds`.`modules_id` "
+                            + "JOIN (SELECT `data`, MIN(`id`) AS `first_id` FROM `modules` GROUP BY `data`) AS `first` ON `first`.`data` = `modules`.`data` "
+                            + "SET `guilds`.`modules_id` = `first`.`first_id`",
+                    "DELETE `duplicate` FROM `modules` AS `duplicate` JOIN `modules` AS `first` ON `first`.`data` = `duplicate`.`data` AND `first`.`id` < `duplicate`.`id`",
+                    "ALTER TABLE `modules` ADD UNIQUE (`data`)")
     };
 
     SQLConnector(Logger logger) throws NullPointerException, SQLException, IOException {
@@ -81,41 +118,271 @@ class SQLConnector {
         // check port
         if (port <= 0 || port >= 65535)
             throw new NullPointerException("Missing valid port");
+
+        // optional pool config
+        try {
+            poolSize    = Integer.parseInt(config.getProperty("pool.size", String.valueOf(DEFAULT_POOL_SIZE)));
+            poolTimeout = Long.parseLong(config.getProperty("pool.timeout", String.valueOf(DEFAULT_POOL_TIMEOUT)));
+        } catch (NumberFormatException e) {
+            throw new NullPointerException("Invalid pool config (" + e.getMessage() + ")");
+        }
     }
 
     /**
-     * Attempts to get a {@link Connection} from the {@link DriverManager}. Address, port, database, user and password
-     * should already have been extracted from config.
+     * Builds the {@link ConnectionPool} and borrows a first {@link Connection} to make sure the database is reachable.
+     * Address, port, database, user and password should already have been extracted from config.
      * @throws SQLException if the connection fails to build or is not valid.
      * @see SQLConnector#extractConfig(Properties)
      */
     private void buildConnection() throws SQLException {
-        connection = DriverManager.getConnection("jdbc:mysql://" + address + ":" + port + "/" + database, user, password);
+        // statements are cached by each PooledConnection, so the driver only needs to prepare them on the server
+        String url = "jdbc:mysql://" + address + ":" + port + "/" + database + "?useServerPrepStmts=true";
+
+        pool = new ConnectionPool(logger, url, user, password, poolSize, poolTimeout);
 
-        if (!connection.isValid(4))
-            throw new SQLException("Connection is invalid");
+        // fail early if the database is not reachable
+        pool.borrow().close();
     }
 
     /**
-     * Creates all template tables if they don't already exist.
+     * Creates all template tables if they don't already exist and applies all {@link Migration Migrations} that are
+     * missing on existing tables.
      */
     private void buildTables() {
         for (String template : TEMPLATES) {
             try {
-                connection.createStatement().execute("CREATE TABLE IF NOT EXISTS " + template);
+                execute("create_table", "CREATE TABLE IF NOT EXISTS " + template);
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "Unable to create template:  " + template, e);
             }
         }
+
+        for (Migration migration : MIGRATIONS) {
+            try {
+                if (this.migrate(migration))
+                    logger.log(Level.INFO, "Applied migration " + migration.name() + ".");
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Unable to apply migration " + migration.name() + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Applies a {@link Migration} unless its check reports that it is already in place.
+     * @return <code>true</code> if the migration has been applied.
+     * @throws SQLException if an SQL error occurs.
+     */
+    private boolean migrate(@NotNull Migration migration) throws SQLException {
+        long present = executeQuery("migration_check", migration.check(), resultSet -> resultSet.next() ? resultSet.getLong(1) : 0L);
+        if (present > 0)
+            return false;
+
+        for (String statement : migration.statements())
+            execute("migration", statement);
+        return true;
     }
 
     /* ------------------------- */
 
-    synchronized boolean execute(@NotNull String statement) throws SQLException {
-        return connection.createStatement().execute(statement);
+    /**
+     * Executes a statement on a pooled {@link Connection}. The {@link PreparedStatement} is cached per connection.
+     * @param name Name of the query in the {@link Metric#DB_QUERY} metrics, e.g. <code>meme_by_id</code>.
+     * @param statement SQL statement with <code>?</code> placeholders.
+     * @param params Parameters to bind to the placeholders (in order).
+     * @return <code>true</code> if the statement produced a {@link ResultSet}.
+     * @throws SQLException if an SQL error occurs or no connection is available.
+     */
+    boolean execute(@NotNull String name, @NotNull String statement, Object... params) throws SQLException {
+        return this.run(name, connection -> {
+            PreparedStatement stmt = connection.prepare(statement);
+            bind(stmt, params);
+            return stmt.execute();
+        });
+    }
+
+    /**
+     * Executes a query on a pooled {@link Connection} and passes the {@link ResultSet} to a handler. The connection is
+     * returned to the pool as soon as the handler has finished, which is why the ResultSet may not escape the handler.
+     * <p>The {@link PreparedStatement} is cached per connection, so repeated queries with the same SQL text reuse the
+     * server-side plan.
+     * @param name Name of the query in the {@link Metric#DB_QUERY} metrics, e.g. <code>meme_by_id</code>.
+     * @param statement SQL query with <code>?</code> placeholders.
+     * @param handler Handler to process the ResultSet.
+     * @param params Parameters to bind to the placeholders (in order).
+     * @return Result of the handler.
+     * @throws SQLException if an SQL error occurs or no connection is available.
+     */
+    <T> T executeQuery(@NotNull String name, @NotNull String statement, @NotNull ResultSetHandler<T> handler, Object... params) throws SQLException {
+        return this.run(name, connection -> {
+            PreparedStatement stmt = connection.prepare(statement);
+            bind(stmt, params);
+
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                return handler.handle(resultSet);
+            }
+        });
+    }
+
+    /**
+     * Executes an insert on a pooled {@link Connection} and provides the value of <code>LAST_INSERT_ID()</code> of that
+     * connection afterwards.
+     * @param name Name of the query in the {@link Metric#DB_QUERY} metrics, e.g. <code>meme_by_id</code>.
+     * @param statement SQL insert with <code>?</code> placeholders.
+     * @param params Parameters to bind to the placeholders (in order).
+     * @return The last generated (or, with <code>LAST_INSERT_ID(expr)</code>, set) ID.
+     * @throws SQLException if an SQL error occurs or no connection is available.
+     */
+    long executeInsert(@NotNull String name, @NotNull String statement, Object... params) throws SQLException {
+        return this.run(name, connection -> {
+            PreparedStatement stmt = connection.prepare(statement);
+            bind(stmt, params);
+            stmt.executeUpdate();
+
+            try (ResultSet resultSet = connection.prepare("SELECT LAST_INSERT_ID()").executeQuery()) {
+                if (!resultSet.next())
+                    throw new SQLException("No generated ID");
+                return resultSet.getLong(1);
+            }
+        });
+    }
+
+    /**
+     * Executes a query and streams its rows to a handler one at a time instead of buffering the whole {@link ResultSet}
+     * in memory. The statement is not cached, as streaming requires its own statement settings.
+     * @param name Name of the query in the {@link Metric#DB_QUERY} metrics, e.g. <code>meme_by_id</code>.
+     * @param statement SQL query with <code>?</code> placeholders.
+     * @param handler Handler that is called for each row.
+     * @param params Parameters to bind to the placeholders (in order).
+     * @return Amount of rows.
+     * @throws SQLException if an SQL error occurs or no connection is available.
+     */
+    int executeStreamed(@NotNull String name, @NotNull String statement, @NotNull RowHandler handler, Object... params) throws SQLException {
+        return this.run(name, connection -> {
+            try (PreparedStatement stmt = connection.getConnection().prepareStatement(statement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // tells the MySQL driver to stream rows
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                bind(stmt, params);
+
+                int rows = 0;
+                try (ResultSet resultSet = stmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        handler.handle(resultSet);
+                        rows++;
+                    }
+                }
+                return rows;
+            }
+        });
+    }
+
+    /**
+     * Executes a statement once for each set of parameters as a single batch on a pooled {@link Connection}.
+     * @param name Name of the query in the {@link Metric#DB_QUERY} metrics, e.g. <code>meme_by_id</code>.
+     * @param statement SQL statement with <code>?</code> placeholders.
+     * @param params One array of parameters per execution.
+     * @return Update counts of each execution.
+     * @throws SQLException if an SQL error occurs or no connection is available.
+     */
+    int[] executeBatch(@NotNull String name, @NotNull String statement, @NotNull List<Object[]> params) throws SQLException {
+        return this.run(name, connection -> {
+            PreparedStatement stmt = connection.prepare(statement);
+            try {
+                for (Object[] param : params) {
+                    bind(stmt, param);
+                    stmt.addBatch();
+                }
+                return stmt.executeBatch();
+            } finally {
+                stmt.clearBatch();
+            }
+        });
+    }
+
+    /**
+     * Runs a call on a pooled {@link Connection} and records its {@link Timing}. A connection that failed with an
+     * {@link SQLException} is validated again before it is handed out the next time.
+     */
+    private <T> T run(@NotNull String name, @NotNull ConnectionCall<T> call) throws SQLException {
+        Timing timing = timing(name);
+        long start = System.nanoTime();
+        try (PooledConnection connection = pool.borrow()) {
+            try {
+                return call.call(connection);
+            } catch (SQLException e) {
+                connection.markFailed();
+                throw e;
+            }
+        } catch (SQLException e) {
+            timing.errors.increment();
+            throw e;
+        } finally {
+            timing.timer.recordSince(start);
+        }
+    }
+
+    private static @NotNull Timing timing(@NotNull String name) {
+        return TIMINGS.computeIfAbsent(name, Timing::new);
+    }
+
+    private static void bind(@NotNull PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++)
+            statement.setObject(i + 1, params[i]);
+    }
+
+    /**
+     * Provides a snapshot of the metrics of the underlying {@link ConnectionPool}.
+     * @return Pool metrics.
+     */
+    @NotNull PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Closes all pooled connections.
+     */
+    void close() {
+        pool.close();
     }
 
-    synchronized @NotNull ResultSet executeQuery(@NotNull String statement) throws SQLException {
-        return connection.createStatement().executeQuery(statement);
+    /**
+     * Timer and error counter of one named query.
+     */
+    private static final class Timing {
+        final LatencyHistogram timer;
+        final LongAdder errors;
+
+        Timing(@NotNull String name) {
+            this.timer  = Metrics.timer(Metric.DB_QUERY, null, name);
+            this.errors = Metrics.counter(Metric.DB_ERRORS, null, name);
+        }
+    }
+
+    /**
+     * An idempotent change of an existing table.
+     * @param name Name of the migration for logging.
+     * @param check Query that counts the rows of <code>information_schema</code> that show the change is in place.
+     * @param statements Statements that apply the change (in order).
+     */
+    private record Migration(@NotNull String name, @NotNull String check, @NotNull String... statements) { }
+
+    @FunctionalInterface
+    private interface ConnectionCall<T> {
+        T call(@NotNull PooledConnection connection) throws SQLException;
+    }
+
+    /**
+     * Processes a {@link ResultSet} while its {@link Connection} is still borrowed.
+     */
+    @FunctionalInterface
+    interface ResultSetHandler<T> {
+        T handle(@NotNull ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Processes the current row of a streamed {@link ResultSet}.
+     */
+    @FunctionalInterface
+    interface RowHandler {
+        void handle(@NotNull ResultSet row) throws SQLException;
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package de.eldritch.anura.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongPredicate;
+
+/**
+ * Hands out memes in a random order without repeating any of them until a fraction of the catalogue has been shown.
+ * <p>Instead of storing a shuffled list per guild the order is defined by a seeded bijective permutation over the dense
+ * indices of the {@link MemeIndex}. The whole state of a bag is therefore a seed, a cursor and the catalogue size at the
+ * start of the current cycle - a few bytes, no matter how many memes exist.
+ * <p>Memes that are added mid-cycle are not part of the current permutation and will be included once the next cycle
+ * starts.
+ * <p>A permutation on its own can not prevent repeats across cycle boundaries (the end of the last cycle may come up
+ * early in the next one) or after a full refresh of the index shifted the dense indices of memes that follow a deleted
+ * one. Callers therefore pass the IDs that have been shown recently (e.g. the recent-ID cache of a guild) and those are
+ * skipped, unless every meme has been shown recently.
+ * @see DataService#getMemeShuffled(ShuffleBag, LongPredicate)
+ */
+public class ShuffleBag {
+    /**
+     * Default fraction of the catalogue that is shown before a new cycle begins.
+     */
+    public static final float DEFAULT_FRACTION = 0.8f;
+
+    private final float fraction;
+
+    private long seed;
+    private int  cursor;
+    private int  cycleSize;
+
+    // derived from seed & cycleSize, not part of the actual state
+    private int  bits;
+    private long mask, mul, add;
+
+    public ShuffleBag() {
+        this(DEFAULT_FRACTION);
+    }
+
+    /**
+     * @param fraction Fraction of the catalogue (<code>0 &lt; fraction &lt;= 1</code>) that is guaranteed to be shown
+     *                 without repeats before a new cycle begins.
+     * @throws IllegalArgumentException if the fraction is out of range.
+     */
+    public ShuffleBag(float fraction) throws IllegalArgumentException {
+        if (!(fraction > 0 && fraction <= 1))
+            throw new IllegalArgumentException("Fraction must be in (0, 1]");
+
+        this.fraction = fraction;
+        this.seed     = ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Provides the ID of the next meme of this bag.
+     * @param index Index of all meme IDs.
+     * @return Meme ID.
+     * @throws NullPointerException if the index is empty.
+     */
+    public long next(@NotNull MemeIndex index) throws NullPointerException {
+        return this.next(index, id -> false);
+    }
+
+    /**
+     * Provides the ID of the next meme of this bag that has not been shown recently. Skipped memes count as shown for
+     * the current cycle. If every candidate has been shown recently the next one is returned anyway.
+     * @param index Index of all meme IDs.
+     * @param recent Tests whether a meme ID has been shown recently.
+     * @return Meme ID.
+     * @throws NullPointerException if the index is empty.
+     */
+    public synchronized long next(@NotNull MemeIndex index, @NotNull LongPredicate recent) throws NullPointerException {
+        int size = index.size();
+        if (size == 0)
+            throw new NullPointerException("No memes available");
+
+        // the whole catalogue has been skipped once at most
+        int skipped = 0;
+        while (true) {
+            if (cycleSize == 0 || cursor >= limit())
+                newCycle(size);
+
+            int i = permute(cursor++);
+
+            // skip indices that no longer exist
+            if (i >= size)
+                continue;
+
+            long id = index.get(i);
+            if (skipped++ < size && recent.test(id))
+                continue;
+            return id;
+        }
+    }
+
+    /**
+     * Provides the amount of memes that have been handed out in the current cycle.
+     * @return Cycle position.
+     */
+    public synchronized int getCursor() {
+        return cursor;
+    }
+
+    /* ------------------------- */
+
+    private int limit() {
+        return Math.max(1, (int) Math.ceil(cycleSize * (double) fraction));
+    }
+
+    private void newCycle(int size) {
+        seed     += 0x9E3779B97F4A7C15L;
+        cursor    = 0;
+        cycleSize = size;
+
+        bits = Math.max(2, 32 - Integer.numberOfLeadingZeros(size - 1));
+        mask = (1L << bits) - 1;
+
+        long r = mix(seed);
+        mul = (r | 1) & mask;            // odd multiplier -> bijection mod 2^bits
+        add = (r >>> 32) & mask;
+    }
+
+    /**
+     * Maps a position of the cycle to a dense index. The mapping is a bijection on <code>[0, 2^bits)</code>; values
+     * that are out of range are walked through the permutation again until they fall into <code>[0, cycleSize)</code>.
+     * Since <code>2^bits &lt; 2 * cycleSize</code> this takes less than two steps on average.
+     */
+    private int permute(int position) {
+        long x = position;
+        do {
+            x = (x * mul + add) & mask;
+            x ^= x >>> (bits / 2 + 1);
+            x = (x * mul) & mask;
+            x ^= x >>> (bits / 2 + 1);
+        } while (x >= cycleSize);
+        return (int) x;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
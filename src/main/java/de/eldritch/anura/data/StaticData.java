@@ -1,8 +1,15 @@
 package de.eldritch.anura.data;
 
+import de.eldritch.anura.util.time.ZoneIdIndex;
+
 import java.time.ZoneId;
 import java.util.Set;
 
 public class StaticData {
     public static final Set<String> AVAILABLE_ZONE_IDS = ZoneId.getAvailableZoneIds();
+
+    /**
+     * Search index over {@link StaticData#AVAILABLE_ZONE_IDS} for autocomplete interactions.
+     */
+    public static final ZoneIdIndex ZONE_INDEX = new ZoneIdIndex(AVAILABLE_ZONE_IDS);
 }
@@ -0,0 +1,153 @@
+package de.eldritch.anura.data;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Text files listing all {@link StaticData#AVAILABLE_ZONE_IDS available zone IDs}, as sent by the
+ * <code>/timezones</code> command.
+ * <p>Each file is encoded (UTF-8) once and then shared read-only by all instances. The content is built on first
+ * access, which {@link ZoneListFile#warmUp()} moves to startup.
+ */
+public enum ZoneListFile {
+    /**
+     * All zone IDs in alphabetical order, one per line.
+     */
+    PLAIN("available-tzdb-timezones.txt") {
+        @Override
+        String build() {
+            StringBuilder builder = new StringBuilder();
+            for (String zoneId : sortedZoneIds())
+                builder.append(zoneId).append("\n");
+            return builder.toString();
+        }
+    },
+    /**
+     * All zone IDs grouped by their region (the part before the first <code>/</code>).
+     */
+    GROUPED("available-tzdb-timezones-grouped.txt") {
+        @Override
+        String build() {
+            Map<String, List<String>> regions = sortedZoneIds().stream().collect(Collectors.groupingBy(
+                    zoneId -> zoneId.contains("/") ? zoneId.substring(0, zoneId.indexOf('/')) : "Other",
+                    TreeMap::new,
+                    Collectors.toList()
+            ));
+
+            StringBuilder builder = new StringBuilder();
+            regions.forEach((region, zoneIds) -> {
+                builder.append("## ").append(region).append(" (").append(zoneIds.size()).append(")\n");
+                for (String zoneId : zoneIds)
+                    builder.append(zoneId).append("\n");
+                builder.append("\n");
+            });
+            return builder.toString();
+        }
+    };
+
+    private final String fileName;
+
+    private volatile byte[] data;
+    private volatile byte[] compressed;
+
+    ZoneListFile(@NotNull String fileName) {
+        this.fileName = fileName;
+    }
+
+    abstract String build();
+
+    /* ------------------------- */
+
+    /**
+     * Builds and compresses all files. Called once on startup so the first <code>/timezones</code> command does not
+     * have to wait for it.
+     */
+    public static void warmUp() {
+        for (ZoneListFile file : values()) {
+            file.getData();
+            file.getCompressedData();
+        }
+    }
+
+    public @NotNull String getFileName() {
+        return fileName;
+    }
+
+    public @NotNull String getCompressedFileName() {
+        return fileName + ".gz";
+    }
+
+    /**
+     * Provides a new {@link InputStream} over the shared UTF-8 content of this file.
+     * @return Stream of the file content.
+     */
+    public @NotNull InputStream openStream() {
+        return new ByteArrayInputStream(getData());
+    }
+
+    /**
+     * Provides a new {@link InputStream} over the shared gzip-compressed content of this file.
+     * @return Stream of the compressed file content.
+     */
+    public @NotNull InputStream openCompressedStream() {
+        return new ByteArrayInputStream(getCompressedData());
+    }
+
+    /**
+     * Provides the size of the uncompressed file.
+     * @return Size in bytes.
+     */
+    public int size() {
+        return getData().length;
+    }
+
+    /* ------------------------- */
+
+    private byte[] getData() {
+        byte[] bytes = data;
+        if (bytes == null) {
+            synchronized (this) {
+                if ((bytes = data) == null)
+                    data = bytes = build().getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return bytes;
+    }
+
+    private byte[] getCompressedData() {
+        byte[] bytes = compressed;
+        if (bytes == null) {
+            synchronized (this) {
+                if ((bytes = compressed) == null)
+                    compressed = bytes = gzip(getData());
+            }
+        }
+        return bytes;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            // not possible for in-memory streams
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<String> sortedZoneIds() {
+        return StaticData.AVAILABLE_ZONE_IDS.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,13 @@
+package de.eldritch.anura.data.entities;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the stored configuration of a guild for a single bot, as in a row of the <code>guilds</code> table.
+ * @param guildId Snowflake ID of the guild.
+ * @param botId Snowflake ID of the bot user.
+ * @param language Language code of the instance.
+ * @param modules Persisted module mask (see {@link de.eldritch.anura.core.module.ModuleMask ModuleMask}).
+ * @param timeZone TZDB zone ID of the guild.
+ */
+public record GuildConfig(long guildId, long botId, @NotNull String language, long modules, @NotNull String timeZone) { }
@@ -1,24 +1,147 @@
 package de.eldritch.anura.util;
 
+import de.eldritch.anura.InstanceKey;
+import de.eldritch.anura.util.text.Language;
+import org.jetbrains.annotations.NotNull;
+
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A simple utility class to provide unique IDs for data entities or possibly other objects in the future.
- * <p>To prevent over-engineering the implementation of IDs for this project, each time the application starts, the
- * current unix system time is stored as an {@link AtomicLong} - each time a new ID is requested this number gets
- * incremented and returned.
- * <p>This is why it is <b>EXTREMELY IMPORTANT</b> to rework this implementation once more than one instance of the
- * application is running at the same time or another service is permitted to generate IDs.
+ * <p>IDs are 63-bit Snowflake IDs that consist of
+ * <ul>
+ *     <li>41 bits of milliseconds since {@link IDUtil#EPOCH} (enough for about 69 years),</li>
+ *     <li>10 bits of worker ID - 5 bits for the process (system property <code>anura.worker</code>, 0-31) and 5 bits
+ *     for the {@link InstanceKey} the ID is generated for,</li>
+ *     <li>12 bits of sequence number to allow 4096 IDs per millisecond and worker.</li>
+ * </ul>
+ * As long as every process that shares a database uses a different <code>anura.worker</code> value, IDs do not collide
+ * across processes, instances or restarts.
+ * <p>Generating an ID is lock-free. If more than 4096 IDs are requested within one millisecond, or if the system clock
+ * goes backwards, the generator keeps counting from its last logical timestamp (borrowing from the next millisecond)
+ * instead of blocking or producing duplicates. The logical time catches up with the clock once the load decreases.
  */
 public class IDUtil {
-    private static final AtomicLong lastId = new AtomicLong(System.currentTimeMillis());
+    /**
+     * Custom epoch of all IDs (<code>2022-01-01T00:00:00Z</code>).
+     */
+    public static final long EPOCH = 1640995200000L;
+
+    private static final int WORKER_BITS   = 10;
+    private static final int INSTANCE_BITS = 5;
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final long MAX_PROCESS  = (1L << (WORKER_BITS - INSTANCE_BITS)) - 1;
+    private static final long MAX_INSTANCE = (1L << INSTANCE_BITS) - 1;
+
+    private static final long PROCESS = parseProcess(System.getProperty("anura.worker", "0"));
+
+    // one generator per worker ID, as generators with the same worker bits would produce colliding IDs
+    private static final IDUtil[] GENERATORS = new IDUtil[(int) MAX_INSTANCE + 1];
+    static {
+        for (int i = 0; i < GENERATORS.length; i++)
+            GENERATORS[i] = new IDUtil(i);
+    }
+    // generator for IDs that do not belong to a specific instance
+    private static final IDUtil DEFAULT = GENERATORS[0];
+
+    private final long worker;
+    // (logical timestamp << SEQUENCE_BITS) | sequence of the last ID
+    private final AtomicLong state = new AtomicLong();
+
+    private IDUtil(long instance) {
+        this.worker = PROCESS << INSTANCE_BITS | instance;
+    }
+
+    private long next() {
+        long current = state.updateAndGet(last -> {
+            long now = System.currentTimeMillis() - EPOCH;
+            if (now > last >>> SEQUENCE_BITS)
+                return now << SEQUENCE_BITS;
+
+            // same millisecond or clock regression: the sequence overflows into the timestamp
+            return last + 1;
+        });
+
+        return (current >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS)
+                | worker << SEQUENCE_BITS
+                | (current & ((1L << SEQUENCE_BITS) - 1));
+    }
+
+    /* ------------------------- */
 
     /**
-     * Provides a new unique ID.
+     * Provides a new unique ID that is not associated with any specific instance.
      * @return Newly generated unique ID
      * @see IDUtil
      */
-    public synchronized static long getNewID() {
-        return lastId.incrementAndGet();
+    public static long getNewID() {
+        return DEFAULT.next();
+    }
+
+    /**
+     * Provides a new unique ID generated by the worker of an {@link InstanceKey}. Keys that are not a {@link Language}
+     * share the worker (and therefore the sequence) of {@link IDUtil#getNewID()}.
+     * @param key The instance the ID is generated for.
+     * @return Newly generated unique ID
+     * @see IDUtil
+     */
+    public static long getNewID(@NotNull InstanceKey key) {
+        return GENERATORS[(int) instanceId(key)].next();
+    }
+
+    /**
+     * Provides the time an ID has been generated at. Due to borrowing this may be slightly later than the actual time.
+     * @param id The ID.
+     * @return Unix timestamp in milliseconds.
+     */
+    public static long getTimestamp(long id) {
+        return (id >>> (WORKER_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * Provides the lowest ID that can be generated at or after a specific time. All IDs generated since then are greater
+     * than or equal to this ID.
+     * @param timestamp Unix timestamp in milliseconds.
+     * @return Lowest possible ID.
+     */
+    public static long getLowestID(long timestamp) {
+        return Math.max(0, timestamp - EPOCH) << (WORKER_BITS + SEQUENCE_BITS);
+    }
+
+    /**
+     * Provides the worker ID (process and instance bits) of an ID.
+     * @param id The ID.
+     * @return Worker ID.
+     */
+    public static int getWorker(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & ((1L << WORKER_BITS) - 1));
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Each {@link Language} gets its own instance ID, starting at 1. All other keys share the ID 0.
+     */
+    private static long instanceId(@NotNull InstanceKey key) {
+        if (key instanceof Language language) {
+            long id = language.ordinal() + 1;
+            if (id > MAX_INSTANCE)
+                throw new IllegalStateException("Too many languages for " + INSTANCE_BITS + " instance bits.");
+            return id;
+        }
+        return 0;
+    }
+
+    private static long parseProcess(@NotNull String value) throws IllegalArgumentException {
+        long process;
+        try {
+            process = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("anura.worker must be a number.", e);
+        }
+        if (process < 0 || process > MAX_PROCESS)
+            throw new IllegalArgumentException("anura.worker must be between 0 and " + MAX_PROCESS + ".");
+        return process;
     }
 }
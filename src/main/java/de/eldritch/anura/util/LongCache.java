@@ -1,14 +1,29 @@
 package de.eldritch.anura.util;
 
-import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * A simple cache that stores a fixed amount of <code>long</code> values. When the capacity is reached the oldest value
  * will be overwritten.
+ * <p>Values are kept in a ring buffer to preserve their order. Additionally, each value is counted in a small
+ * open-addressing hash table, so {@link LongCache#contains(long)} does not have to scan the buffer. Duplicates are
+ * allowed and counted separately.
+ * <p>Lookups are far more frequent than insertions, so {@link LongCache#contains(long)} does not lock: it probes the
+ * table optimistically and only takes the read lock if a concurrent {@link LongCache#put(long)} has invalidated the
+ * probe. Insertions take a single write lock, as each cache belongs to one guild and only receives one value per
+ * posted meme, so writers practically never contend.
  */
 public class LongCache {
     private final long[] arr;
     private int pointer = 0;
+    private int size    = 0;
+
+    // hash table of all values in the buffer (count 0 marks an empty slot)
+    private final long[] keys;
+    private final int[]  counts;
+    private final int    mask;
+
+    private final StampedLock lock = new StampedLock();
 
     public LongCache(int capacity, long... entries) throws IllegalArgumentException {
         if (capacity <= 0)
@@ -16,30 +31,140 @@ public class LongCache {
 
         arr = new long[capacity];
 
+        // keep the load factor at or below 0.5
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        keys   = new long[tableSize];
+        counts = new int[tableSize];
+        mask   = tableSize - 1;
+
         for (long entry : entries) {
             put(entry);
         }
     }
 
-    public synchronized void put(long l) {
-        arr[pointer++] = l;
+    public void put(long l) {
+        long stamp = lock.writeLock();
+        try {
+            if (size == arr.length) {
+                decrement(arr[pointer]);
+            } else {
+                size++;
+            }
 
-        if (pointer >= arr.length)
-            pointer = 0;
+            arr[pointer++] = l;
+            increment(l);
+
+            if (pointer >= arr.length)
+                pointer = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     public boolean contains(long l) {
-        return Arrays.stream(arr).anyMatch(value -> value == l);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean found = probe(l);
+            if (lock.validate(stamp))
+                return found;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return counts[find(l)] > 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Provides the amount of values currently stored in this cache.
+     * @return Amount of stored values.
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Provides an exact copy of the underlying array. The new array is not guaranteed to be ordered from oldest to
-     * newest due to the way values are stored.
-     * @return A copy of the underlying array.
+     * Provides a copy of all stored values, ordered from oldest to newest. The array is shorter than the capacity if
+     * the cache has not been filled yet.
+     * @return A copy of the stored values.
      */
     public long[] toArray() {
-        long[] copy = new long[arr.length];
-        System.arraycopy(arr, 0, copy, 0, arr.length);
-        return copy;
+        long stamp = lock.readLock();
+        try {
+            long[] copy = new long[size];
+
+            int start = size == arr.length ? pointer : 0;
+            for (int i = 0; i < size; i++)
+                copy[i] = arr[(start + i) % arr.length];
+
+            return copy;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /* ------------------------- */
+
+    private int slot(long l) {
+        long h = l * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Provides the slot of a value or the empty slot where it would be inserted.
+     */
+    private int find(long l) {
+        int i = slot(l);
+        while (counts[i] > 0 && keys[i] != l)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * Looks up a value without holding the lock. The table may change during the probe, so the walk is bounded by the
+     * table size and the result is only meaningful if the optimistic stamp is still valid afterwards.
+     */
+    private boolean probe(long l) {
+        int i = slot(l);
+        for (int n = 0; n <= mask; n++) {
+            if (counts[i] <= 0) return false;
+            if (keys[i] == l) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    private void increment(long l) {
+        int i = find(l);
+        keys[i] = l;
+        counts[i]++;
+    }
+
+    private void decrement(long l) {
+        int i = find(l);
+        if (counts[i] == 0 || --counts[i] > 0) return;
+
+        // backward shift deletion to keep probe chains intact
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (counts[j] == 0) break;
+
+            int home = slot(keys[j]);
+            // move the entry if its home slot is not within (i, j]
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i]   = keys[j];
+                counts[i] = counts[j];
+                counts[j] = 0;
+                i = j;
+            }
+        }
     }
 }
@@ -0,0 +1,332 @@
+package de.eldritch.anura.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+/**
+ * A thread-safe map with primitive <code>long</code> keys, used where a {@code Map<Long, V>} would box every key on
+ * every lookup (e.g. snowflake IDs on the event path).
+ * <p>The map is split into segments, each an open-addressing hash table guarded by a {@link StampedLock}. Reads are
+ * optimistic and therefore lock-free as long as the segment is not modified at the same time. Writes only lock the
+ * segment of their key.
+ * <p><code>null</code> values are not permitted.
+ */
+public class LongConcurrentMap<V> {
+    private static final int SEGMENT_BITS   = 5;
+    private static final int INITIAL_SIZE   = 16;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public LongConcurrentMap() {
+        segments = (Segment<V>[]) new Segment<?>[1 << SEGMENT_BITS];
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = new Segment<>();
+    }
+
+    /**
+     * Provides the value associated with a key.
+     * @param key The key.
+     * @return Associated value or <code>null</code> if there is none.
+     */
+    public @Nullable V get(long key) {
+        long h = hash(key);
+        return segment(h).get(key, h);
+    }
+
+    /**
+     * Provides the value associated with a key. If there is none the mapping function is called to create one.
+     * <p>The function is called without holding any lock, so a slow function does not block other keys and may itself
+     * access this map. If multiple threads request the same missing key concurrently, the function may be called more
+     * than once, but only the first value is installed and all of them receive that value. The function should
+     * therefore not have side effects that must happen only once.
+     * @param key The key.
+     * @param mappingFunction Function to create a missing value.
+     * @return Existing or newly created value.
+     * @throws NullPointerException if the function returns <code>null</code>.
+     */
+    public @NotNull V computeIfAbsent(long key, @NotNull LongFunction<? extends V> mappingFunction) throws NullPointerException {
+        long h = hash(key);
+        Segment<V> segment = segment(h);
+
+        V value = segment.get(key, h);
+        if (value != null)
+            return value;
+
+        value = mappingFunction.apply(key);
+        if (value == null)
+            throw new NullPointerException("Mapping function may not return null");
+
+        V existing = segment.putIfAbsent(key, h, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     * @param key The key.
+     * @param value The new value.
+     * @return The previous value or <code>null</code> if there was none.
+     */
+    public @Nullable V put(long key, @NotNull V value) {
+        long h = hash(key);
+        return segment(h).put(key, h, value);
+    }
+
+    /**
+     * Associates a value with a key unless the key already has a value.
+     * @param key The key.
+     * @param value The new value.
+     * @return The existing value or <code>null</code> if the new value has been associated.
+     */
+    public @Nullable V putIfAbsent(long key, @NotNull V value) {
+        long h = hash(key);
+        return segment(h).putIfAbsent(key, h, value);
+    }
+
+    /**
+     * Removes the value associated with a key.
+     * @param key The key.
+     * @return The removed value or <code>null</code> if there was none.
+     */
+    public @Nullable V remove(long key) {
+        long h = hash(key);
+        return segment(h).remove(key, h);
+    }
+
+    /**
+     * Removes the value associated with a key, but only if it is (equal to) the given value. This is atomic, so a value
+     * that has been replaced concurrently is not removed.
+     * @param key The key.
+     * @param value The expected value.
+     * @return true if the value has been removed.
+     */
+    public boolean remove(long key, @NotNull V value) {
+        long h = hash(key);
+        return segment(h).remove(key, h, value);
+    }
+
+    /**
+     * Provides the amount of mappings. As segments are counted one after another this is only an estimate if the map
+     * is modified concurrently.
+     * @return Amount of mappings.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    /**
+     * Provides a snapshot of all values.
+     * @return List of all values at the time of the call (per segment).
+     */
+    public @NotNull List<V> values() {
+        List<V> list = new ArrayList<>();
+        for (Segment<V> segment : segments)
+            segment.collect(list);
+        return list;
+    }
+
+    /* ------------------------- */
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private Segment<V> segment(long h) {
+        return segments[(int) (h >>> (64 - SEGMENT_BITS))];
+    }
+
+    /* ------------------------- */
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+
+        // replaced on resize, so readers always see a consistent pair of arrays
+        private Table table = new Table(INITIAL_SIZE);
+        private int size = 0;
+
+        V get(long key, long h) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                V value = table.get(key, h);
+                if (lock.validate(stamp))
+                    return value;
+            }
+
+            stamp = lock.readLock();
+            try {
+                return table.get(key, h);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        V putIfAbsent(long key, long h, V value) {
+            long stamp = lock.writeLock();
+            try {
+                V existing = table.get(key, h);
+                if (existing != null)
+                    return existing;
+
+                insert(key, h, value);
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V put(long key, long h, V value) {
+            long stamp = lock.writeLock();
+            try {
+                int i = table.find(key, h);
+                V old = (V) table.values[i];
+                if (old != null) {
+                    table.values[i] = value;
+                    return old;
+                }
+
+                insert(key, h, value);
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key, long h) {
+            long stamp = lock.writeLock();
+            try {
+                int i = table.find(key, h);
+                V old = (V) table.values[i];
+                if (old == null)
+                    return null;
+
+                table.delete(i);
+                size--;
+                return old;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean remove(long key, long h, V value) {
+            long stamp = lock.writeLock();
+            try {
+                int i = table.find(key, h);
+                V old = (V) table.values[i];
+                if (old == null || !old.equals(value))
+                    return false;
+
+                table.delete(i);
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void collect(List<V> list) {
+            long stamp = lock.readLock();
+            try {
+                for (Object value : table.values)
+                    if (value != null)
+                        list.add((V) value);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // must hold write lock
+        private void insert(long key, long h, V value) {
+            if ((size + 1) * 4 > table.keys.length * 3)
+                table = table.resize();
+
+            int i = table.find(key, h);
+            table.keys[i]   = key;
+            table.values[i] = value;
+            size++;
+        }
+    }
+
+    private static final class Table {
+        final long[]   keys;
+        final Object[] values;
+        final int      mask;
+
+        Table(int size) {
+            keys   = new long[size];
+            values = new Object[size];
+            mask   = size - 1;
+        }
+
+        /**
+         * Provides the slot of a key or the empty slot where it would be inserted. The probe is bounded by the table
+         * size, so an optimistic reader that races with a writer can not loop forever.
+         */
+        int find(long key, long h) {
+            int i = (int) h & mask;
+            for (int n = 0; n <= mask && values[i] != null && keys[i] != key; n++)
+                i = (i + 1) & mask;
+            return i;
+        }
+
+        @SuppressWarnings("unchecked")
+        <V> V get(long key, long h) {
+            int i = find(key, h);
+            return keys[i] == key ? (V) values[i] : null;
+        }
+
+        /**
+         * Removes the entry at a slot with backward shift deletion to keep probe chains intact.
+         */
+        void delete(int i) {
+            values[i] = null;
+
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (values[j] == null) break;
+
+                int home = (int) hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i]   = keys[j];
+                    values[i] = values[j];
+                    values[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        Table resize() {
+            Table next = new Table(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] == null) continue;
+
+                int j = next.find(keys[i], hash(keys[i]));
+                next.keys[j]   = keys[i];
+                next.values[j] = values[i];
+            }
+            return next;
+        }
+    }
+}
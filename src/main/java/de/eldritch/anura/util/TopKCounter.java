@@ -0,0 +1,118 @@
+package de.eldritch.anura.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Counts the most frequent values of a stream in constant memory, using the <i>Space-Saving</i> algorithm.
+ * <p>At most a fixed amount of values is tracked. Once all counters are taken, a new value replaces the one with the
+ * lowest count and inherits that count as its possible overestimation (<i>error</i>). Values that are frequent enough
+ * to matter are never replaced, so their counts are exact up to that error.
+ * <p>Writers are synchronized. After every change an immutable snapshot of the top values is published, which readers
+ * can access without locking.
+ */
+public class TopKCounter {
+    private final int k;
+    private final long minCount;
+
+    private final Entry[] entries;
+    private final HashMap<String, Entry> index = new HashMap<>();
+    private int size;
+
+    private volatile List<String> snapshot = List.of();
+
+    /**
+     * Creates a new TopKCounter.
+     * @param capacity Amount of values that are tracked. This should be a few times larger than <code>k</code>.
+     * @param k Maximum amount of values in a snapshot.
+     * @param minCount Minimum guaranteed count (count minus error) a value needs to be part of a snapshot.
+     * @throws IllegalArgumentException if the capacity is smaller than <code>k</code> or <code>k</code> is not positive.
+     */
+    public TopKCounter(int capacity, int k, long minCount) throws IllegalArgumentException {
+        if (k <= 0 || capacity < k)
+            throw new IllegalArgumentException("Capacity must be at least k and k must be positive.");
+
+        this.k        = k;
+        this.minCount = minCount;
+        this.entries  = new Entry[capacity];
+    }
+
+    /**
+     * Counts a value once.
+     * @param value The value.
+     */
+    public void offer(@NotNull String value) {
+        this.offer(value, 1);
+    }
+
+    /**
+     * Counts a value multiple times.
+     * @param value The value.
+     * @param count How often the value has occurred.
+     * @throws IllegalArgumentException if the count is not positive.
+     */
+    public synchronized void offer(@NotNull String value, long count) throws IllegalArgumentException {
+        if (count <= 0)
+            throw new IllegalArgumentException("Count must be positive.");
+
+        Entry entry = index.get(value);
+        if (entry != null) {
+            entry.count += count;
+        } else if (size < entries.length) {
+            entry = new Entry(value, count, 0);
+            entries[size++] = entry;
+            index.put(value, entry);
+        } else {
+            // replace the value with the lowest count
+            Entry min = entries[0];
+            for (int i = 1; i < size; i++)
+                if (entries[i].count < min.count)
+                    min = entries[i];
+
+            index.remove(min.value);
+            min.error = min.count;
+            min.count += count;
+            min.value = value;
+            index.put(value, min);
+        }
+
+        this.publish();
+    }
+
+    private void publish() {
+        Entry[] sorted = Arrays.copyOf(entries, size);
+        Arrays.sort(sorted, Comparator.comparingLong((Entry e) -> e.count).reversed().thenComparing(e -> e.value));
+
+        List<String> list = new ArrayList<>(k);
+        for (int i = 0; i < sorted.length && list.size() < k; i++)
+            if (sorted[i].count - sorted[i].error >= minCount)
+                list.add(sorted[i].value);
+
+        this.snapshot = List.copyOf(list);
+    }
+
+    /**
+     * Provides the most frequent values, most frequent first. This does not lock.
+     * @return Immutable list of up to <code>k</code> values.
+     */
+    public @NotNull List<String> snapshot() {
+        return snapshot;
+    }
+
+    private static final class Entry {
+        String value;
+        long count;
+        long error;
+
+        Entry(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package de.eldritch.anura.util.logging;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} that decouples logging from output. Published {@link LogRecord LogRecords} are put into a bounded
+ * ring buffer and passed to the actual handlers by a single writer thread, so a thread that logs never has to wait for
+ * formatting or I/O.
+ * <p>If the buffer is full the {@link OverflowPolicy} decides what happens. Records that have been discarded are counted
+ * and reported by the writer once the buffer has room again.
+ */
+public class AsyncHandler extends Handler {
+    // maximum amount of records the writer takes from the buffer at once
+    private static final int BATCH_SIZE = 64;
+
+    private final List<Handler> handlers;
+    private final OverflowPolicy policy;
+
+    private final LogRecord[] buffer;
+    private int head;
+    private int size;
+    private boolean closed;
+
+    private final ReentrantLock lock     = new ReentrantLock();
+    private final Condition     notEmpty = lock.newCondition();
+    private final Condition     notFull  = lock.newCondition();
+
+    private final LongAdder dropped = new LongAdder();
+    private long reportedDropped;
+
+    private final Thread writer;
+
+    /**
+     * Creates a new AsyncHandler and starts its writer thread.
+     * @param capacity Maximum amount of records waiting to be written.
+     * @param policy What to do with new records if the buffer is full.
+     * @param handlers Handlers the records are written to.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public AsyncHandler(int capacity, @NotNull OverflowPolicy policy, @NotNull Handler... handlers) throws IllegalArgumentException {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive.");
+
+        this.handlers = List.of(handlers);
+        this.policy   = policy;
+        this.buffer   = new LogRecord[capacity];
+
+        this.writer = new Thread(this::drain, "AsyncHandler-Writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (record == null || !isLoggable(record)) return;
+
+        lock.lock();
+        try {
+            if (closed) return;
+
+            if (size == buffer.length) {
+                switch (policy) {
+                    case BLOCK -> {
+                        while (size == buffer.length && !closed)
+                            notFull.awaitUninterruptibly();
+                        if (closed) return;
+                    }
+                    case DROP_NEWEST -> {
+                        dropped.increment();
+                        return;
+                    }
+                    case DROP_OLDEST -> {
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        size--;
+                        dropped.increment();
+                    }
+                }
+            }
+
+            buffer[(head + size) % buffer.length] = record;
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writer loop. Takes batches of records from the buffer and passes them to the handlers outside of the lock. The
+     * handlers are flushed whenever the buffer has been emptied.
+     */
+    private void drain() {
+        LogRecord[] batch = new LogRecord[Math.min(BATCH_SIZE, buffer.length)];
+
+        while (true) {
+            int n;
+            boolean empty;
+
+            lock.lock();
+            try {
+                while (size == 0 && !closed)
+                    notEmpty.awaitUninterruptibly();
+                if (size == 0) return;
+
+                n = Math.min(size, batch.length);
+                for (int i = 0; i < n; i++) {
+                    batch[i] = buffer[head];
+                    buffer[head] = null;
+                    head = (head + 1) % buffer.length;
+                }
+                size -= n;
+                empty = size == 0;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < n; i++) {
+                write(batch[i]);
+                batch[i] = null;
+            }
+
+            long total = dropped.sum();
+            if (total != reportedDropped) {
+                write(new LogRecord(Level.WARNING, "[AsyncHandler] Dropped " + (total - reportedDropped) + " log records because the buffer was full."));
+                reportedDropped = total;
+            }
+
+            if (empty)
+                handlers.forEach(Handler::flush);
+        }
+    }
+
+    private void write(@NotNull LogRecord record) {
+        for (Handler handler : handlers) {
+            try {
+                handler.publish(record);
+            } catch (Exception e) {
+                reportError(null, e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Provides the amount of records that have been discarded due to a full buffer since this handler was created.
+     * @return Amount of dropped records.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Provides the {@link OverflowPolicy} of this handler.
+     * @return Overflow policy.
+     */
+    public @NotNull OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Does not block. Records are flushed by the writer as soon as the buffer has been emptied.
+     */
+    @Override
+    public void flush() { }
+
+    /**
+     * Stops accepting records, waits (up to 5 seconds) for the writer to write all remaining records and closes the
+     * handlers.
+     */
+    @Override
+    public void close() throws SecurityException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Handler handler : handlers) {
+            handler.flush();
+            handler.close();
+        }
+    }
+}
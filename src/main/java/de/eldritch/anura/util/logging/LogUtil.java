@@ -6,53 +6,54 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.NotDirectoryException;
-import java.sql.Date;
-import java.text.SimpleDateFormat;
-import java.time.Instant;
-import java.util.logging.FileHandler;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.logging.Formatter;
 
 public class LogUtil {
     /**
-     * After the main class requests the {@link FileHandler} via {@link LogUtil#getFileHandler(Formatter)} the log file
-     * that is associated with that handler will be stored in this variable, so it can be used later.
+     * Size after which a new log segment is started.
      */
-    private static File logFile;
+    public static final long MAX_SEGMENT_BYTES = 16L * 1024 * 1024;
+    /**
+     * Maximum size of all (mostly compressed) log segments together. The oldest segments are deleted once this is
+     * exceeded.
+     */
+    public static final long RETENTION_BYTES = 512L * 1024 * 1024;
 
     /**
-     * Provides a {@link FileHandler} that is already set up for the running {@link Anura} instance.
+     * After the main class requests the {@link RotatingFileHandler} via {@link LogUtil#getFileHandler(Formatter)} the
+     * handler will be stored in this variable, so its files can be accessed later.
+     */
+    private static RotatingFileHandler fileHandler;
+
+    /**
+     * Provides a {@link RotatingFileHandler} that is already set up for the running {@link Anura} instance.
      * @param formatter Log {@link Formatter} to assign to the handler.
-     * @return A {@link FileHandler} with the new log file.
+     * @return A {@link RotatingFileHandler} writing to the log directory.
      * @throws IOException if the handler fails to initialize.
      */
-    public static @NotNull FileHandler getFileHandler(@NotNull Formatter formatter) throws IOException {
-        String datePrefix = new SimpleDateFormat("yyyy-MM-dd'T'").format(Date.from(Instant.now()));
-
-        // retrieve all existing log files from today
-        File[] files = getLogDir().listFiles((dir, name) -> name.matches("^\\d\\d\\d\\d-\\d\\d-\\d\\dT_\\d+\\.log$") && name.startsWith(datePrefix));
-        if (files == null)
-            throw new NotDirectoryException(getLogDir().getName());
-
-        String fileName = datePrefix + "_" + files.length + ".log";
-
-        // create File
-        logFile = new File(getLogDir(), fileName);
-
-
-        // create FileHandler
-        FileHandler fileHandler = new FileHandler(logFile.getPath(), true);
-        fileHandler.setFormatter(formatter);
+    public static @NotNull RotatingFileHandler getFileHandler(@NotNull Formatter formatter) throws IOException {
+        fileHandler = new RotatingFileHandler(getLogDir(), formatter, MAX_SEGMENT_BYTES, RETENTION_BYTES);
         return fileHandler;
     }
 
     /**
-     * Provides the {@link File} that has been associated with the {@link FileHandler} by calling
-     * {@link LogUtil#getFileHandler(Formatter)}. This may be null if the FileHandler has not yet been created.
-     * @return Log file associated with the FileHandler of the global logger.
+     * Provides the {@link File} the {@link RotatingFileHandler} created by {@link LogUtil#getFileHandler(Formatter)}
+     * currently writes to. This may be null if the handler has not yet been created.
+     * @return Current log file of the global logger.
      */
     public static @Nullable File getLogFile() {
-        return logFile;
+        return fileHandler != null ? fileHandler.getCurrentFile() : null;
+    }
+
+    /**
+     * Provides all log files (compressed or not) of the current day, oldest first. This may be empty if the
+     * {@link RotatingFileHandler} has not yet been created.
+     * @return Log files of today.
+     */
+    public static @NotNull List<File> getLogFilesOfToday() {
+        return fileHandler != null ? fileHandler.getSegments(LocalDate.now()) : List.of();
     }
 
     /**
@@ -65,4 +66,4 @@ public class LogUtil {
         file.mkdir();
         return file;
     }
-}
\ No newline at end of file
+}
@@ -2,27 +2,55 @@ package de.eldritch.anura.util.logging;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.util.logging.Handler;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
-import java.util.logging.StreamHandler;
 
 /**
- * A very simple way to have an easier implementation of nested {@link Logger Loggers}. It simply disables use of parent
- * handlers and publishes {@link LogRecord LogRecords} manually after changing their message content to embed the name.
+ * A very simple way to have an easier implementation of nested {@link Logger Loggers}. It disables use of parent
+ * handlers and publishes {@link LogRecord LogRecords} manually after prefixing their message with the names of all
+ * nested loggers.
+ * <p>The prefix of the whole chain is computed once on construction and records are published directly to the first
+ * logger that is not a NestedLogger, instead of being passed up one level at a time.
  */
 public class NestedLogger extends Logger {
+    private final String prefix;
+    private final Logger root;
+
     public NestedLogger(@NotNull String name, @NotNull Logger parent) {
         super(name, null);
 
+        if (parent instanceof NestedLogger nested) {
+            this.prefix = nested.prefix + "[" + name + "] ";
+            this.root   = nested.root;
+        } else {
+            this.prefix = "[" + name + "] ";
+            this.root   = parent;
+        }
+
         this.setUseParentHandlers(false);
 
-        // manually publish records to parent
-        this.addHandler(new StreamHandler() {
+        // manually publish records to root
+        this.addHandler(new Handler() {
             @Override
             public void publish(LogRecord record) {
-                record.setMessage("[" + record.getLoggerName() + "] " + record.getMessage());
-                parent.log(record);
+                record.setMessage(prefix + record.getMessage());
+                root.log(record);
             }
+
+            @Override
+            public void flush() { }
+
+            @Override
+            public void close() { }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Provides the prefix that is added to each message of this logger.
+     * @return Message prefix.
+     */
+    public @NotNull String getPrefix() {
+        return prefix;
+    }
+}
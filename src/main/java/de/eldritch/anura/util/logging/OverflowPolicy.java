@@ -0,0 +1,22 @@
+package de.eldritch.anura.util.logging;
+
+import java.util.logging.LogRecord;
+
+/**
+ * Decides what an {@link AsyncHandler} does with a {@link LogRecord} if its buffer is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * The logging thread waits until the writer has made room in the buffer. No records are lost, but a slow output can
+     * stall the caller.
+     */
+    BLOCK,
+    /**
+     * The new record is discarded.
+     */
+    DROP_NEWEST,
+    /**
+     * The oldest record in the buffer is discarded to make room for the new one.
+     */
+    DROP_OLDEST
+}
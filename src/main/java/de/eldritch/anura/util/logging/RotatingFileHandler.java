@@ -0,0 +1,235 @@
+package de.eldritch.anura.util.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link Handler} that writes to a sequence of log segments (<code>yyyy-MM-ddT_n.log</code>) in a directory.
+ * <p>A new segment is started when the current one would exceed its maximum size or when a record belongs to a later
+ * day than the current segment. Closed segments are compressed to <code>.log.gz</code> by a background thread, which
+ * also deletes the oldest segments once all segments together exceed the retention budget. All segments are tracked by
+ * a {@link SegmentIndex}.
+ */
+public class RotatingFileHandler extends Handler {
+    private final File dir;
+    private final long maxSegmentBytes;
+    private final long retentionBytes;
+
+    private final SegmentIndex index;
+    private final ExecutorService compressor;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private File current;
+    private OutputStream stream;
+    private long written;
+    private long dayEnd;
+
+    /**
+     * Creates a new RotatingFileHandler and opens the first segment. Uncompressed segments of previous runs are
+     * compressed in the background.
+     * @param dir Directory to write segments to.
+     * @param formatter Formatter for records.
+     * @param maxSegmentBytes Size after which a new segment is started.
+     * @param retentionBytes Maximum size of all segments together.
+     * @throws IOException if the index or the first segment could not be created.
+     * @throws IllegalArgumentException if one of the sizes is not positive.
+     */
+    public RotatingFileHandler(@NotNull File dir, @NotNull Formatter formatter, long maxSegmentBytes, long retentionBytes) throws IOException, IllegalArgumentException {
+        if (maxSegmentBytes <= 0 || retentionBytes <= 0)
+            throw new IllegalArgumentException("Sizes must be positive.");
+
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.retentionBytes  = retentionBytes;
+        this.setFormatter(formatter);
+
+        this.index = new SegmentIndex(dir);
+        this.compressor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RotatingFileHandler-Compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // compress segments left behind by previous runs
+        for (String name : index.names())
+            if (name.endsWith(".log"))
+                this.compress(name);
+
+        this.open(LocalDate.now());
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (record == null || !isLoggable(record) || stream == null) return;
+
+        byte[] bytes;
+        try {
+            bytes = getFormatter().format(record).getBytes(StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+
+        try {
+            if (record.getMillis() >= dayEnd || (written > 0 && written + bytes.length > maxSegmentBytes))
+                this.rotate(LocalDate.ofInstant(record.getInstant(), ZoneId.systemDefault()));
+
+            stream.write(bytes);
+            written += bytes.length;
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /* ---------- SEGMENTS ---------- */
+
+    private void open(@NotNull LocalDate date) throws IOException {
+        String name = SegmentIndex.name(date, index.nextSequence(date));
+
+        current = new File(dir, name);
+        stream  = new BufferedOutputStream(new FileOutputStream(current, true), 8192);
+        written = current.length();
+        dayEnd  = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        index.add(name, written);
+    }
+
+    private void rotate(@NotNull LocalDate date) throws IOException {
+        // never go back to an earlier day if the clock has been adjusted
+        LocalDate currentDate = SegmentIndex.date(current.getName());
+        if (currentDate != null && date.isBefore(currentDate))
+            date = currentDate;
+
+        stream.close();
+        index.add(current.getName(), current.length());
+        this.compress(current.getName());
+
+        this.open(date);
+    }
+
+    private void compress(@NotNull String name) {
+        pending.incrementAndGet();
+        compressor.execute(() -> {
+            File source = new File(dir, name);
+            File target = new File(dir, name + ".gz");
+            File tmp    = new File(dir, name + ".gz.tmp");
+
+            try {
+                if (source.isFile()) {
+                    try (InputStream in = new FileInputStream(source); OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp))) {
+                        in.transferTo(out);
+                    }
+                    Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    Files.delete(source.toPath());
+                    index.replace(name, target.getName(), target.length());
+                } else {
+                    index.remove(name);
+                }
+            } catch (IOException e) {
+                reportError("Unable to compress log segment " + name, e, ErrorManager.GENERIC_FAILURE);
+            }
+
+            // uncompressed segments would distort the total, so wait until all have been compressed
+            if (pending.decrementAndGet() > 0) return;
+            try {
+                this.enforceRetention();
+            } catch (IOException e) {
+                reportError("Unable to delete old log segments", e, ErrorManager.GENERIC_FAILURE);
+            }
+        });
+    }
+
+    /**
+     * Deletes the oldest segments until the total size is within the retention budget. The segment that is currently
+     * written to is never deleted.
+     */
+    private void enforceRetention() throws IOException {
+        List<String> names = index.names();
+        for (int i = 0; i < names.size() && index.totalSize() > retentionBytes; i++) {
+            String name = names.get(i);
+            if (name.equals(getCurrentName())) continue;
+
+            Files.deleteIfExists(new File(dir, name).toPath());
+            index.remove(name);
+        }
+    }
+
+    private synchronized @Nullable String getCurrentName() {
+        return current != null ? current.getName() : null;
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Provides the segment that is currently written to.
+     * @return Current log file.
+     */
+    public synchronized @NotNull File getCurrentFile() {
+        return current;
+    }
+
+    /**
+     * Provides all segments (compressed or not) of a day, oldest first. This is answered from the index, the directory
+     * is not listed.
+     * @param date The day.
+     * @return List of existing segment files.
+     */
+    public @NotNull List<File> getSegments(@NotNull LocalDate date) {
+        return index.names().stream()
+                .filter(name -> date.equals(SegmentIndex.date(name)))
+                .map(name -> new File(dir, name))
+                .toList();
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (stream == null) return;
+        try {
+            stream.flush();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    /**
+     * Closes the current segment and waits (up to 10 seconds) for pending compressions. The last segment stays
+     * uncompressed and is compressed on the next start.
+     */
+    @Override
+    public void close() throws SecurityException {
+        synchronized (this) {
+            if (stream == null) return;
+            try {
+                stream.close();
+                index.add(current.getName(), current.length());
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.CLOSE_FAILURE);
+            }
+            stream = null;
+        }
+
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package de.eldritch.anura.util.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps track of all log segments written by a {@link RotatingFileHandler}, oldest first. The index is persisted to a
+ * small text file in the log directory (one <code>name size</code> pair per line), so the next sequence number and the
+ * segments of a day can be found without listing the directory. The directory is only scanned if the index file is
+ * missing.
+ * <p>All methods are synchronized as segments are added by the logging thread and updated by the compressor.
+ */
+class SegmentIndex {
+    private static final String  FILE_NAME = "segments.idx";
+    private static final Pattern SEGMENT   = Pattern.compile("^(\\d{4}-\\d{2}-\\d{2})T_(\\d+)\\.log(\\.gz)?$");
+
+    private final File dir;
+    private final File file;
+
+    // segment name -> size in bytes (insertion order is the order of creation)
+    private final LinkedHashMap<String, Long> segments = new LinkedHashMap<>();
+
+    SegmentIndex(@NotNull File dir) throws IOException {
+        this.dir  = dir;
+        this.file = new File(dir, FILE_NAME);
+
+        if (file.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int split = line.lastIndexOf(' ');
+                    if (split > 0)
+                        segments.put(line.substring(0, split), Long.parseLong(line.substring(split + 1)));
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed segment index: " + file, e);
+            }
+        } else {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Scans the log directory once to create an index that did not exist before.
+     */
+    private void rebuild() throws IOException {
+        File[] files = dir.listFiles((d, name) -> SEGMENT.matcher(name).matches());
+        if (files == null)
+            throw new IOException("Unable to list " + dir);
+
+        Arrays.sort(files, Comparator.comparing((File f) -> date(f.getName())).thenComparingInt(f -> sequence(f.getName())));
+        for (File f : files)
+            segments.put(f.getName(), f.length());
+        this.save();
+    }
+
+    /* ------------------------- */
+
+    synchronized void add(@NotNull String name, long size) throws IOException {
+        segments.put(name, size);
+        this.save();
+    }
+
+    synchronized void replace(@NotNull String name, @NotNull String newName, long size) throws IOException {
+        LinkedHashMap<String, Long> copy = new LinkedHashMap<>();
+        segments.forEach((key, value) -> {
+            if (key.equals(name))
+                copy.put(newName, size);
+            else
+                copy.put(key, value);
+        });
+        segments.clear();
+        segments.putAll(copy);
+        this.save();
+    }
+
+    synchronized void remove(@NotNull String name) throws IOException {
+        if (segments.remove(name) != null)
+            this.save();
+    }
+
+    synchronized long totalSize() {
+        long total = 0;
+        for (long size : segments.values())
+            total += size;
+        return total;
+    }
+
+    /**
+     * Provides the names of all segments, oldest first.
+     */
+    synchronized @NotNull List<String> names() {
+        return new ArrayList<>(segments.keySet());
+    }
+
+    /**
+     * Provides the next free sequence number for segments of the given day.
+     */
+    synchronized int nextSequence(@NotNull LocalDate date) {
+        String prefix = date.toString();
+        int next = 0;
+        for (String name : segments.keySet())
+            if (name.startsWith(prefix))
+                next = Math.max(next, sequence(name) + 1);
+        return next;
+    }
+
+    private void save() throws IOException {
+        File tmp = new File(dir, FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> entry : segments.entrySet())
+                writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /* ------------------------- */
+
+    static @NotNull String name(@NotNull LocalDate date, int sequence) {
+        return date + "T_" + sequence + ".log";
+    }
+
+    static @Nullable LocalDate date(@NotNull String name) {
+        Matcher matcher = SEGMENT.matcher(name);
+        return matcher.matches() ? LocalDate.parse(matcher.group(1)) : null;
+    }
+
+    static int sequence(@NotNull String name) {
+        Matcher matcher = SEGMENT.matcher(name);
+        return matcher.matches() ? Integer.parseInt(matcher.group(2)) : -1;
+    }
+}
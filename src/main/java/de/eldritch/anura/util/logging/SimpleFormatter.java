@@ -2,7 +2,7 @@ package de.eldritch.anura.util.logging;
 
 import de.eldritch.anura.Anura;
 
-import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
@@ -10,46 +10,54 @@ import java.util.logging.Logger;
 
 /**
  * A simple {@link Formatter} used by the global {@link Logger} of the current {@link Anura} instance.
+ * <p>The time is taken from the record itself (so records written later by an {@link AsyncHandler} keep the time they
+ * were logged at) and formatted with a shared {@link DateTimeFormatter}.
  */
 public class SimpleFormatter extends Formatter {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    // length of a formatted timestamp
+    private static final int TIME_LENGTH  = 17;
+    private static final int LEVEL_LENGTH = 7;
+
     @Override
     public String format(LogRecord record) {
         if (record == null) return null;
 
-        String time  = DateTimeFormatter.ofPattern("yy-MM-dd HH:mm:ss").format(LocalDateTime.now());
-        String level = String.format("%7s", record.getLevel().getName());
-
-        StringBuilder str = new StringBuilder();
+        StringBuilder str = new StringBuilder(128);
 
         if (record.getThrown() == null) {
-            str.append("[")
-                    .append(time)
-                    .append(" ")
-                    .append(level)
-                    .append("]: ")
+            str.append("[");
+            TIME_FORMAT.formatTo(record.getInstant(), str);
+            str.append(" ");
+            appendLevel(str, record.getLevel().getName());
+            str.append("]: ")
                     .append("[")
                     .append(record.getLoggerName())
                     .append("]  ")
                     .append(record.getMessage())
                     .append("\n");
         } else {
-            str.append(" ".repeat(time.length() + 2)).append(record.getLevel().getName()).append(" ").append(record.getThrown().toString()).append("\n");
-
-            StackTraceElement[] stackTrace = record.getThrown().getStackTrace();
-            for (StackTraceElement stackTraceElement : stackTrace) {
-                str.append(" ".repeat(time.length() + level.length() + 5))
-                        .append("  ")
-                        .append(stackTraceElement)
-                        .append("\n");
-            }
-
-            if (record.getThrown().getCause() != null) {
-                LogRecord subRecord = new LogRecord(record.getLevel(), null);
-                subRecord.setThrown(record.getThrown().getCause());
-                str.append("\n").append(" ".repeat(time.length() + 2)).append("CAUSED BY:\n").append(this.format(subRecord));
-            }
+            appendThrown(str, record.getLevel().getName(), record.getThrown());
         }
 
         return str.toString();
     }
-}
\ No newline at end of file
+
+    private static void appendLevel(StringBuilder str, String level) {
+        str.append(" ".repeat(Math.max(0, LEVEL_LENGTH - level.length()))).append(level);
+    }
+
+    private static void appendThrown(StringBuilder str, String level, Throwable thrown) {
+        str.append(" ".repeat(TIME_LENGTH + 2)).append(level).append(" ").append(thrown).append("\n");
+
+        String indent = " ".repeat(TIME_LENGTH + LEVEL_LENGTH + 5 + 2);
+        for (StackTraceElement stackTraceElement : thrown.getStackTrace())
+            str.append(indent).append(stackTraceElement).append("\n");
+
+        if (thrown.getCause() != null) {
+            str.append("\n").append(" ".repeat(TIME_LENGTH + 2)).append("CAUSED BY:\n");
+            appendThrown(str, level, thrown.getCause());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package de.eldritch.anura.util.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds with a fixed memory footprint.
+ * <p>Buckets are laid out like in <i>HdrHistogram</i>: every power of two is split into 16 linear
+ * sub-buckets, so every recorded value is accurate to about 6% regardless of its magnitude. Values from 0 up to
+ * {@link LatencyHistogram#MAX_VALUE} (about 137 seconds) fit into 544 buckets; larger values are counted in the last
+ * bucket, but the exact maximum is tracked separately.
+ * <p>Recording a value is a single atomic increment plus a few {@link LongAdder} updates and does not allocate.
+ */
+public class LatencyHistogram {
+    // linear sub-buckets per power of two (2^SUB_BITS / 2)
+    private static final int SUB_BITS    = 5;
+    private static final int SUB_BUCKETS = 1 << (SUB_BITS - 1);
+
+    /**
+     * Largest value that is assigned to its own bucket.
+     */
+    public static final long MAX_VALUE = (1L << 37) - 1;
+
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum   = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a duration.
+     * @param nanos Duration in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        counts.incrementAndGet(index(Math.min(nanos, MAX_VALUE)));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Records the time that has passed since a previous call of {@link System#nanoTime()}.
+     * @param startNanos Result of {@link System#nanoTime()} at the start of the measured operation.
+     */
+    public void recordSince(long startNanos) {
+        this.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Provides a copy of the current state. Values that are recorded while the copy is made may or may not be included.
+     * @return Snapshot of this histogram.
+     */
+    public @NotNull Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            copy[i] = counts.get(i);
+        return new Snapshot(copy, count.sum(), sum.sum(), max.get());
+    }
+
+    /* ------------------------- */
+
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+
+        // shift so that the value keeps SUB_BITS significant bits (the highest one is always set)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+
+        int  shift    = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * An immutable copy of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count  = count;
+            this.sum    = sum;
+            this.max    = max;
+        }
+
+        /**
+         * Provides the value below which a fraction of all recorded values fall. The result is the upper bound of the
+         * bucket containing that value, but never larger than the maximum.
+         * @param quantile Fraction between 0 and 1 (e.g. <code>0.99</code>).
+         * @return Duration in nanoseconds or 0 if nothing has been recorded.
+         * @throws IllegalArgumentException if the quantile is not between 0 and 1.
+         */
+        public long quantile(double quantile) throws IllegalArgumentException {
+            if (quantile < 0 || quantile > 1)
+                throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+
+            // the bucket counts may be slightly ahead of the total, so use their own sum
+            long total = 0;
+            for (long c : counts)
+                total += c;
+            if (total == 0)
+                return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return Sum of all recorded durations in nanoseconds.
+         */
+        public long sum() {
+            return sum;
+        }
+
+        /**
+         * @return Largest recorded duration in nanoseconds.
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * @return Average duration in nanoseconds or 0 if nothing has been recorded.
+         */
+        public long mean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * Formats a duration for humans, e.g. <code>1.25ms</code>.
+         * @param nanos Duration in nanoseconds.
+         * @return Formatted duration.
+         */
+        public static @NotNull String format(long nanos) {
+            if (nanos < TimeUnit.MICROSECONDS.toNanos(1))
+                return nanos + "ns";
+            if (nanos < TimeUnit.MILLISECONDS.toNanos(1))
+                return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+            if (nanos < TimeUnit.SECONDS.toNanos(1))
+                return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+            return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+        }
+    }
+}
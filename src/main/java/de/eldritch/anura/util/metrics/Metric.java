@@ -0,0 +1,79 @@
+package de.eldritch.anura.util.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * All timers and counters recorded by Anura. Each metric is keyed by the instance it has been recorded for (if any,
+ * exported as the <code>language</code> label) and by one additional label, e.g. the name of a command.
+ * @see Metrics
+ */
+public enum Metric {
+    /**
+     * Time spent on the event thread handling a slash command.
+     */
+    COMMAND(Type.TIMER, "anura_command_seconds", "command", "Time spent on the event thread handling a slash command."),
+    /**
+     * Slash commands that have thrown an exception.
+     */
+    COMMAND_ERRORS(Type.COUNTER, "anura_command_errors_total", "command", "Slash commands that have thrown an exception."),
+    /**
+     * Time spent on the event thread answering an autocomplete interaction.
+     */
+    AUTOCOMPLETE(Type.TIMER, "anura_autocomplete_seconds", "command", "Time spent on the event thread answering an autocomplete interaction."),
+    /**
+     * Time spent by a routed dialogue (e.g. the invite form) handling an interaction.
+     */
+    ROUTED(Type.TIMER, "anura_routed_interaction_seconds", "route", "Time spent by a routed dialogue handling an interaction."),
+    /**
+     * Time a module took to enable.
+     */
+    MODULE_ENABLE(Type.TIMER, "anura_module_enable_seconds", "module", "Time a module took to enable."),
+    /**
+     * Modules that have failed to enable.
+     */
+    MODULE_ENABLE_ERRORS(Type.COUNTER, "anura_module_enable_errors_total", "module", "Modules that have failed to enable."),
+    /**
+     * Time of a named database query, including the time waiting for a pooled connection.
+     */
+    DB_QUERY(Type.TIMER, "anura_db_query_seconds", "query", "Time of a database query, including the wait for a pooled connection."),
+    /**
+     * Database queries that have failed.
+     */
+    DB_ERRORS(Type.COUNTER, "anura_db_errors_total", "query", "Database queries that have failed.");
+
+    enum Type { TIMER, COUNTER }
+
+    private final Type type;
+    private final String name;
+    private final String label;
+    private final String help;
+
+    Metric(@NotNull Type type, @NotNull String name, @NotNull String label, @NotNull String help) {
+        this.type  = type;
+        this.name  = name;
+        this.label = label;
+        this.help  = help;
+    }
+
+    @NotNull Type type() {
+        return type;
+    }
+
+    /**
+     * @return Name of the metric in the Prometheus exposition format.
+     */
+    public @NotNull String metricName() {
+        return name;
+    }
+
+    /**
+     * @return Name of the label that distinguishes the values of this metric within an instance.
+     */
+    public @NotNull String label() {
+        return label;
+    }
+
+    public @NotNull String help() {
+        return help;
+    }
+}
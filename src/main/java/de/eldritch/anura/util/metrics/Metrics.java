@@ -0,0 +1,142 @@
+package de.eldritch.anura.util.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Central registry of all runtime metrics.
+ * <ul>
+ *     <li><b>Timers</b> are {@link LatencyHistogram LatencyHistograms} of a {@link Metric}, keyed by instance and
+ *     label value (e.g. <code>EN</code> and <code>timezones</code>).</li>
+ *     <li><b>Counters</b> are {@link LongAdder LongAdders} keyed the same way.</li>
+ *     <li><b>Gauges</b> are read from a supplier whenever the metrics are scraped, e.g. the amount of active pooled
+ *     connections. Totals that are already counted elsewhere are registered the same way as derived counters.</li>
+ * </ul>
+ * Timers and counters are created on first use and live as long as the application. Callers on a hot path should keep
+ * a reference instead of looking them up for every event, although a lookup is only a single hash map access.
+ * @see MetricsServer
+ */
+public class Metrics {
+    private static final ConcurrentHashMap<MetricKey, LatencyHistogram> TIMERS   = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<MetricKey, LongAdder>        COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Gauge>               GAUGES   = new ConcurrentHashMap<>();
+
+    private Metrics() { }
+
+    /**
+     * Provides the timer of a {@link Metric}, creating it if necessary.
+     * @param metric A metric of type timer.
+     * @param instance Name of the instance or <code>null</code> if the metric is not specific to one.
+     * @param value Value of the label of the metric.
+     * @return The timer.
+     * @throws IllegalArgumentException if the metric is not a timer.
+     */
+    public static @NotNull LatencyHistogram timer(@NotNull Metric metric, @Nullable String instance, @NotNull String value) throws IllegalArgumentException {
+        if (metric.type() != Metric.Type.TIMER)
+            throw new IllegalArgumentException(metric + " is not a timer.");
+        return TIMERS.computeIfAbsent(new MetricKey(metric, instance, value), k -> new LatencyHistogram());
+    }
+
+    /**
+     * Provides the counter of a {@link Metric}, creating it if necessary.
+     * @param metric A metric of type counter.
+     * @param instance Name of the instance or <code>null</code> if the metric is not specific to one.
+     * @param value Value of the label of the metric.
+     * @return The counter.
+     * @throws IllegalArgumentException if the metric is not a counter.
+     */
+    public static @NotNull LongAdder counter(@NotNull Metric metric, @Nullable String instance, @NotNull String value) throws IllegalArgumentException {
+        if (metric.type() != Metric.Type.COUNTER)
+            throw new IllegalArgumentException(metric + " is not a counter.");
+        return COUNTERS.computeIfAbsent(new MetricKey(metric, instance, value), k -> new LongAdder());
+    }
+
+    /**
+     * Registers a gauge. A gauge with the same name is replaced (e.g. when a service is created again).
+     * @param name Name of the gauge in the Prometheus exposition format.
+     * @param help Description of the gauge.
+     * @param supplier Supplier of the current value. Called whenever the metrics are scraped.
+     */
+    public static void gauge(@NotNull String name, @NotNull String help, @NotNull DoubleSupplier supplier) {
+        GAUGES.put(name, new Gauge(name, help, false, supplier));
+    }
+
+    /**
+     * Registers a counter that is maintained elsewhere (e.g. a total in a stats record) and read like a gauge. A metric
+     * with the same name is replaced.
+     * @param name Name of the counter in the Prometheus exposition format, should end with <code>_total</code>.
+     * @param help Description of the counter.
+     * @param supplier Supplier of the current total. Called whenever the metrics are scraped.
+     */
+    public static void derivedCounter(@NotNull String name, @NotNull String help, @NotNull DoubleSupplier supplier) {
+        GAUGES.put(name, new Gauge(name, help, true, supplier));
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Provides a snapshot of all timers.
+     * @return Immutable map of all timers and their snapshots.
+     */
+    public static @NotNull Map<MetricKey, LatencyHistogram.Snapshot> snapshotTimers() {
+        HashMap<MetricKey, LatencyHistogram.Snapshot> map = new HashMap<>();
+        TIMERS.forEach((key, timer) -> map.put(key, timer.snapshot()));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Provides the current values of all counters.
+     * @return Immutable map of all counters and their values.
+     */
+    public static @NotNull Map<MetricKey, Long> snapshotCounters() {
+        HashMap<MetricKey, Long> map = new HashMap<>();
+        COUNTERS.forEach((key, counter) -> map.put(key, counter.sum()));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Provides the current value of a gauge.
+     * @param name Name of the gauge.
+     * @return Current value or {@link Double#NaN} if no such gauge exists or its supplier failed.
+     */
+    public static double readGauge(@NotNull String name) {
+        Gauge gauge = GAUGES.get(name);
+        return gauge == null ? Double.NaN : gauge.read();
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format (version 0.0.4). Timers are written as summaries
+     * with the 0.5, 0.9, 0.99 and 0.999 quantiles and an additional <code>_max</code> gauge.
+     * @return All metrics.
+     */
+    public static @NotNull String scrape() {
+        return PrometheusFormat.write(snapshotTimers(), snapshotCounters(), GAUGES.values());
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Identifies a single timer or counter.
+     * @param metric The metric.
+     * @param instance Name of the instance or <code>null</code> if the metric is not specific to one.
+     * @param value Value of the label of the metric.
+     */
+    public record MetricKey(@NotNull Metric metric, @Nullable String instance, @NotNull String value) { }
+
+    record Gauge(@NotNull String name, @NotNull String help, boolean counter, @NotNull DoubleSupplier supplier) {
+        double read() {
+            try {
+                return supplier.getAsDouble();
+            } catch (RuntimeException e) {
+                return Double.NaN;
+            }
+        }
+    }
+}
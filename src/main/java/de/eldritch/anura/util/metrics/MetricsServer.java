@@ -0,0 +1,108 @@
+package de.eldritch.anura.util.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * A minimal HTTP server that exposes plain text views, most importantly {@link Metrics#scrape()} at
+ * <code>/metrics</code> for Prometheus.
+ * <p>The server only binds to the loopback address, so metrics are not reachable from other hosts unless they are
+ * explicitly forwarded. Requests are handled one at a time by a single daemon thread.
+ */
+public class MetricsServer implements AutoCloseable {
+    /**
+     * Port that is used if the system property <code>anura.metrics.port</code> is not set.
+     */
+    public static final int DEFAULT_PORT = 9464;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates and starts a new MetricsServer that serves {@link Metrics#scrape()} at <code>/metrics</code>.
+     * @param port Port to bind to on the loopback address.
+     * @throws IOException if the port can not be bound.
+     */
+    public MetricsServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MetricsServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(executor);
+
+        this.route("/metrics", Metrics::scrape);
+        this.server.start();
+    }
+
+    /**
+     * Serves the text of a supplier at a path. The supplier is called for every request.
+     * @param path Path of the view, e.g. <code>/summary</code>.
+     * @param view Supplier of the text.
+     * @return This server for chaining.
+     */
+    public @NotNull MetricsServer route(@NotNull String path, @NotNull Supplier<String> view) {
+        server.createContext(path, exchange -> this.handle(exchange, view));
+        return this;
+    }
+
+    private void handle(@NotNull HttpExchange exchange, @NotNull Supplier<String> view) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body;
+            try {
+                body = view.get().getBytes(StandardCharsets.UTF_8);
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Provides the port the server is bound to.
+     * @return Bound port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server. Requests that are currently handled are given one second to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,145 @@
+package de.eldritch.anura.util.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes metrics in the Prometheus text exposition format.
+ * @see Metrics#scrape()
+ */
+class PrometheusFormat {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final Comparator<Metrics.MetricKey> ORDER = Comparator
+            .comparing((Metrics.MetricKey k) -> String.valueOf(k.instance()))
+            .thenComparing(Metrics.MetricKey::value);
+
+    private PrometheusFormat() { }
+
+    static @NotNull String write(@NotNull Map<Metrics.MetricKey, LatencyHistogram.Snapshot> timers,
+                                 @NotNull Map<Metrics.MetricKey, Long> counters,
+                                 @NotNull Collection<Metrics.Gauge> gauges) {
+        StringBuilder builder = new StringBuilder(4096);
+
+        for (Metric metric : Metric.values()) {
+            if (metric.type() == Metric.Type.TIMER)
+                writeTimer(builder, metric, timers);
+            else
+                writeCounter(builder, metric, counters);
+        }
+
+        List<Metrics.Gauge> sorted = new ArrayList<>(gauges);
+        sorted.sort(Comparator.comparing(Metrics.Gauge::name));
+        for (Metrics.Gauge gauge : sorted) {
+            header(builder, gauge.name(), gauge.help(), gauge.counter() ? "counter" : "gauge");
+            builder.append(gauge.name()).append(' ').append(number(gauge.read())).append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    private static void writeTimer(@NotNull StringBuilder builder, @NotNull Metric metric, @NotNull Map<Metrics.MetricKey, LatencyHistogram.Snapshot> timers) {
+        List<Metrics.MetricKey> keys = keys(metric, timers);
+        if (keys.isEmpty()) return;
+
+        String name = metric.metricName();
+        header(builder, name, metric.help(), "summary");
+        for (Metrics.MetricKey key : keys) {
+            LatencyHistogram.Snapshot snapshot = timers.get(key);
+
+            for (double quantile : QUANTILES) {
+                builder.append(name);
+                labels(builder, key, "quantile", Double.toString(quantile));
+                builder.append(' ').append(seconds(snapshot.quantile(quantile))).append('\n');
+            }
+            builder.append(name).append("_sum");
+            labels(builder, key, null, null);
+            builder.append(' ').append(seconds(snapshot.sum())).append('\n');
+
+            builder.append(name).append("_count");
+            labels(builder, key, null, null);
+            builder.append(' ').append(snapshot.count()).append('\n');
+        }
+
+        header(builder, name + "_max", "Largest value of " + name + ".", "gauge");
+        for (Metrics.MetricKey key : keys) {
+            builder.append(name).append("_max");
+            labels(builder, key, null, null);
+            builder.append(' ').append(seconds(timers.get(key).max())).append('\n');
+        }
+    }
+
+    private static void writeCounter(@NotNull StringBuilder builder, @NotNull Metric metric, @NotNull Map<Metrics.MetricKey, Long> counters) {
+        List<Metrics.MetricKey> keys = keys(metric, counters);
+        if (keys.isEmpty()) return;
+
+        header(builder, metric.metricName(), metric.help(), "counter");
+        for (Metrics.MetricKey key : keys) {
+            builder.append(metric.metricName());
+            labels(builder, key, null, null);
+            builder.append(' ').append(counters.get(key)).append('\n');
+        }
+    }
+
+    /* ------------------------- */
+
+    private static @NotNull List<Metrics.MetricKey> keys(@NotNull Metric metric, @NotNull Map<Metrics.MetricKey, ?> map) {
+        List<Metrics.MetricKey> keys = new ArrayList<>();
+        for (Metrics.MetricKey key : map.keySet())
+            if (key.metric() == metric)
+                keys.add(key);
+        keys.sort(ORDER);
+        return keys;
+    }
+
+    private static void header(@NotNull StringBuilder builder, @NotNull String name, @NotNull String help, @NotNull String type) {
+        builder.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void labels(@NotNull StringBuilder builder, @NotNull Metrics.MetricKey key, @Nullable String extraName, @Nullable String extraValue) {
+        builder.append('{');
+        if (key.instance() != null) {
+            label(builder, "language", key.instance());
+            builder.append(',');
+        }
+        label(builder, key.metric().label(), key.value());
+        if (extraName != null) {
+            builder.append(',');
+            label(builder, extraName, extraValue);
+        }
+        builder.append('}');
+    }
+
+    private static void label(@NotNull StringBuilder builder, @NotNull String name, @NotNull String value) {
+        builder.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> builder.append("\\\\");
+                case '"'  -> builder.append("\\\"");
+                case '\n' -> builder.append("\\n");
+                default   -> builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+
+    private static @NotNull String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static @NotNull String number(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+}
@@ -5,36 +5,69 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Represents the content of a lang file - or more precisely a map of all keys and {@link String Strings} of a single
  * language. Each key holds a single {@link String} that can be accessed via {@link TextUtil}.
+ * <p>All strings are compiled to {@link TextTemplate TextTemplates} once when the file is loaded. The resulting map is
+ * immutable, so lookups do not need any synchronization.
  */
 class LangData {
-    private final Reader reader;
-    private final Properties data;
+    private final Map<String, TextTemplate> data;
 
-    public LangData(@NotNull Reader reader) {
-        this.reader = reader;
-        this.data   = new Properties();
+    public LangData(@NotNull Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
 
-        this.load();
+        HashMap<String, TextTemplate> map = new HashMap<>();
+        for (String key : properties.stringPropertyNames())
+            map.put(key, TextTemplate.compile(properties.getProperty(key)));
+        this.data = Map.copyOf(map);
     }
 
-    public void load() {
-        try {
-            data.load(reader);
-        } catch (IOException ignored) { }
+    private LangData(@NotNull Map<String, TextTemplate> data) {
+        this.data = Map.copyOf(data);
     }
 
     /**
-     * Searches the lang data for a {@link String} with this key and returns it. If no {@link String} could be found
+     * Creates a new {@link LangData} that contains all keys of this one and any keys of the fallback that are missing
+     * here.
+     * @param fallback LangData to take missing keys from.
+     * @return Merged LangData.
+     */
+    @NotNull LangData withFallback(@NotNull LangData fallback) {
+        HashMap<String, TextTemplate> map = new HashMap<>(fallback.data);
+        map.putAll(this.data);
+        return new LangData(map);
+    }
+
+    /**
+     * Provides all keys of this lang data.
+     * @return Set of keys.
+     */
+    @NotNull Set<String> keys() {
+        return data.keySet();
+    }
+
+    /**
+     * Searches the lang data for a {@link TextTemplate} with this key and returns it. If no template could be found
      * <code>null</code> will be returned.
-     * @param key The key to the requested {@link String}.
-     * @return String associated with the key.
+     * @param key The key to the requested template.
+     * @return Template associated with the key.
+     */
+    @Nullable TextTemplate get(@NotNull String key) {
+        return data.get(key);
+    }
+
+    /**
+     * Provides an empty {@link LangData}.
+     * @return LangData without keys.
      */
-    @Nullable String get(@NotNull String key) {
-        return data.getProperty(key);
+    static @NotNull LangData empty() {
+        return new LangData(Map.of());
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import de.eldritch.anura.InstanceKey;
 import de.eldritch.anura.InstanceManager;
 import de.eldritch.anura.core.AnuraInstance;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public enum Language implements InstanceKey {
     ENGLISH("EN", true),
@@ -36,4 +37,30 @@ public enum Language implements InstanceKey {
     public boolean shouldImplement() {
         return implement;
     }
+
+    /**
+     * Provides the language with a code.
+     * @param code Language code (e.g. <code>EN</code>).
+     * @return Matching language or <code>null</code> if there is none.
+     */
+    public static @Nullable Language fromCode(@Nullable String code) {
+        for (Language language : values())
+            if (language.code.equals(code))
+                return language;
+        return null;
+    }
+
+    /**
+     * Provides the language that is used for keys that are missing in this language. Fallbacks form a chain that ends
+     * with <code>ENGLISH</code> (<code>KERL</code> &rarr; <code>GERMAN</code> &rarr; <code>ENGLISH</code>).
+     * @return Fallback language or <code>null</code> if this is the end of the chain.
+     * @see TextUtil
+     */
+    public @Nullable Language fallback() {
+        return switch (this) {
+            case ENGLISH   -> null;
+            case KERL      -> GERMAN;
+            case GERMAN, UNDEFINED -> ENGLISH;
+        };
+    }
 }
@@ -0,0 +1,111 @@
+package de.eldritch.anura.util.text;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pre-compiled {@link MessageFormat} pattern. The pattern is parsed once when the language file is loaded instead of
+ * on every {@link TextUtil#get(String, Language, String...)} call.
+ * <p>Simple patterns (only literal text and <code>{n}</code> placeholders, with the usual quoting rules) are split into
+ * segments that can be concatenated without any further parsing. Patterns without placeholders are stored as constants.
+ * Patterns that use format types or styles (e.g. <code>{0,number}</code>) are passed to {@link MessageFormat} as before.
+ * <p>Instances are immutable and can be shared between threads.
+ */
+final class TextTemplate {
+    private final String pattern;
+
+    // null if the pattern could not be compiled
+    private final String[] literals;
+    private final int[] arguments;
+    private final String constant;
+
+    private TextTemplate(@NotNull String pattern, String[] literals, int[] arguments) {
+        this.pattern   = pattern;
+        this.literals  = literals;
+        this.arguments = arguments;
+        this.constant  = literals != null && arguments.length == 0 ? literals[0] : null;
+    }
+
+    /**
+     * Compiles a {@link MessageFormat} pattern.
+     * @param pattern The pattern.
+     * @return Compiled template.
+     */
+    static @NotNull TextTemplate compile(@NotNull String pattern) {
+        List<String>  literals  = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (quoted || c != '{') {
+                literal.append(c);
+            } else {
+                int end = pattern.indexOf('}', i);
+                if (end < 0)
+                    return new TextTemplate(pattern, null, null);
+
+                int index;
+                try {
+                    index = Integer.parseInt(pattern.substring(i + 1, end).trim());
+                } catch (NumberFormatException e) {
+                    // format types, styles or illegal arguments are left to MessageFormat
+                    return new TextTemplate(pattern, null, null);
+                }
+                if (index < 0)
+                    return new TextTemplate(pattern, null, null);
+
+                literals.add(literal.toString());
+                arguments.add(index);
+                literal.setLength(0);
+                i = end;
+            }
+        }
+        literals.add(literal.toString());
+
+        return new TextTemplate(
+                pattern,
+                literals.toArray(String[]::new),
+                arguments.stream().mapToInt(Integer::intValue).toArray()
+        );
+    }
+
+    /**
+     * Formats this template with the given arguments. The result is equal to
+     * <code>MessageFormat.format(pattern, args)</code>.
+     * @param args Arguments to replace the placeholders with.
+     * @return Formatted string.
+     */
+    @NotNull String format(String... args) {
+        if (constant != null)
+            return constant;
+
+        if (literals == null)
+            return MessageFormat.format(pattern, (Object[]) args);
+
+        StringBuilder builder = new StringBuilder(pattern.length() + 16);
+        for (int i = 0; i < arguments.length; i++) {
+            builder.append(literals[i]);
+
+            int index = arguments[i];
+            if (args == null || index >= args.length)
+                builder.append('{').append(index).append('}');
+            else
+                builder.append(args[index]);
+        }
+        return builder.append(literals[arguments.length]).toString();
+    }
+}
@@ -2,61 +2,204 @@ package de.eldritch.anura.util.text;
 
 import de.eldritch.anura.Anura;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
-import java.text.MessageFormat;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Provides localized {@link Text} from the language files.
+ * <p>All language packs are loaded in parallel by {@link TextUtil#loadAll()} on startup. Each pack is then resolved
+ * against its {@link Language#fallback() fallback chain}, so a key that is missing in one language is taken from the
+ * next language in the chain - once, at load time. The resolved packs are immutable {@link LangData} objects of
+ * pre-compiled {@link TextTemplate TextTemplates} and are replaced as a whole, so
+ * {@link TextUtil#get(String, Language, String...)} never has to lock - only loading is synchronized.
+ * <p>Packs in the external <code>lang</code> directory take precedence over the bundled resources. If
+ * {@link TextUtil#watch()} has been called, changes to that directory are picked up and swapped in at runtime.
+ */
 public class TextUtil {
     private static final String RESOURCE_PATH = "lang";
     private static final String EXTERNAL_PATH = "lang";
 
-    private static TextUtil singleton;
+    // time to wait for further file changes before reloading
+    private static final long WATCH_DEBOUNCE = 500;
 
-    private final HashMap<Language, LangData> data = new HashMap<>();
+    private static final TextUtil singleton = new TextUtil();
+
+    // packs as loaded from files and resolved packs (including fallback keys), both copy-on-write
+    private volatile Map<Language, LangData> packs = new EnumMap<>(Language.class);
+    private volatile Map<Language, LangData> data  = new EnumMap<>(Language.class);
+
+    private Thread watcher;
 
     private TextUtil() { }
 
     private Text get0(@NotNull String key, @NotNull Language language, String... format) throws IllegalLanguageException, NullPointerException {
-        if (!data.containsKey(language)) {
-            try {
-                this.load0(language);
-            } catch (IOException | NullPointerException e) {
-                throw new IllegalLanguageException("Language not found: " + language.code(), e);
-            }
+        LangData langData = data.get(language);
+        if (langData == null) {
+            this.loadAll0();
+
+            langData = data.get(language);
+            if (langData == null)
+                throw new IllegalLanguageException("Language not found: " + language.code(), null);
         }
 
         // return formatted Text object
-        String str = data.get(language).get(key);
-        if (str == null)
+        TextTemplate template = langData.get(key);
+        if (template == null)
             throw new NullPointerException("Key has no value: " + key);
-        return new Text(language, MessageFormat.format(str, (Object[]) format));
+        return new Text(language, template.format(format));
     }
 
-    private void load0(@NotNull Language language) throws IOException, NullPointerException {
+    /* ---------- LOADING ---------- */
+
+    private synchronized void loadAll0() {
+        // read all packs in parallel
+        Map<Language, CompletableFuture<LangData>> futures = new EnumMap<>(Language.class);
+        for (Language language : Language.values()) {
+            futures.put(language, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return read(language);
+                } catch (IOException e) {
+                    log(Level.WARNING, "Unable to load language " + language.code() + ".", e);
+                    return null;
+                }
+            }));
+        }
+
+        EnumMap<Language, LangData> next = new EnumMap<>(Language.class);
+        futures.forEach((language, future) -> {
+            LangData langData = future.join();
+            if (langData != null)
+                next.put(language, langData);
+        });
+
+        this.publish(next);
+    }
+
+    private synchronized void load0(@NotNull Language language) throws IOException, NullPointerException {
+        LangData langData = read(language);
+        if (langData == null)
+            throw new NullPointerException("No language data found.");
+
+        EnumMap<Language, LangData> next = new EnumMap<>(Language.class);
+        next.putAll(packs);
+        next.put(language, langData);
+
+        this.publish(next);
+    }
+
+    /**
+     * Resolves all fallback chains, validates key coverage against <code>ENGLISH</code> and publishes the result.
+     */
+    private void publish(@NotNull Map<Language, LangData> next) {
+        EnumMap<Language, LangData> resolved = new EnumMap<>(Language.class);
+        for (Language language : Language.values()) {
+            LangData langData = next.getOrDefault(language, LangData.empty());
+
+            for (Language fallback = language.fallback(); fallback != null; fallback = fallback.fallback())
+                langData = langData.withFallback(next.getOrDefault(fallback, LangData.empty()));
+
+            resolved.put(language, langData);
+        }
+
+        // validate coverage
+        LangData reference = next.get(Language.ENGLISH);
+        if (reference == null) {
+            log(Level.WARNING, "No language data found for " + Language.ENGLISH.code() + ".", null);
+        } else {
+            next.forEach((language, langData) -> {
+                List<String> missing = reference.keys().stream().filter(key -> langData.get(key) == null).sorted().toList();
+                if (!missing.isEmpty())
+                    log(Level.INFO, "Language " + language.code() + " is missing " + missing.size() + " of "
+                            + reference.keys().size() + " keys (using fallback): " + missing, null);
+            });
+        }
+
+        this.packs = next;
+        this.data  = resolved;
+    }
+
+    /**
+     * Reads the pack of a single language, either from the external directory or from the bundled resources.
+     * @return LangData or <code>null</code> if no pack exists for that language.
+     */
+    private static @Nullable LangData read(@NotNull Language language) throws IOException {
         // try to load from external file
-        File file = new File(new File(Anura.singleton.getDirectory(), EXTERNAL_PATH), language.code() + ".properties");
-        if (file.exists() && file.isFile()) {
-            LangData langData = new LangData(new FileReader(file));
-            data.put(language, langData);
-            return;
+        File dir = getExternalDirectory();
+        if (dir != null) {
+            File file = new File(dir, language.code() + ".properties");
+            if (file.exists() && file.isFile()) {
+                try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                    return new LangData(reader);
+                }
+            }
         }
 
         // try to load from resource
-        InputStream stream = ClassLoader.getSystemResourceAsStream(RESOURCE_PATH + File.separator + language.code() + ".properties");
+        InputStream stream = TextUtil.class.getClassLoader().getResourceAsStream(RESOURCE_PATH + "/" + language.code() + ".properties");
         if (stream != null) {
-            LangData langData = new LangData(new InputStreamReader(stream));
-            data.put(language, langData);
+            try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                return new LangData(reader);
+            }
         }
 
         // not found
-        throw new NullPointerException("No language data found.");
+        return null;
     }
 
-    private synchronized static void checkSingleton() {
-        if (singleton == null) {
-            singleton = new TextUtil();
-        }
+    private static @Nullable File getExternalDirectory() {
+        if (Anura.singleton == null)
+            return null;
+        return new File(Anura.singleton.getDirectory(), EXTERNAL_PATH);
+    }
+
+    private static void log(@NotNull Level level, @NotNull String msg, @Nullable Throwable thrown) {
+        Logger logger = Anura.singleton != null ? Anura.singleton.getLogger() : null;
+        if (logger != null)
+            logger.log(level, "[TextUtil] " + msg, thrown);
+    }
+
+    /* ---------- WATCHER ---------- */
+
+    private synchronized void watch0() throws IOException {
+        if (watcher != null) return;
+
+        File dir = getExternalDirectory();
+        if (dir == null || !dir.isDirectory())
+            throw new NotDirectoryException(String.valueOf(dir));
+
+        WatchService service = FileSystems.getDefault().newWatchService();
+        dir.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        watcher = new Thread(() -> {
+            try (service) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    WatchKey key = service.take();
+
+                    // wait for related events (editors often write a file more than once)
+                    Thread.sleep(WATCH_DEBOUNCE);
+
+                    boolean changed = key.pollEvents().stream().anyMatch(event -> String.valueOf(event.context()).endsWith(".properties"));
+                    key.reset();
+
+                    if (changed) {
+                        log(Level.INFO, "Language files changed. Reloading...", null);
+                        this.loadAll0();
+                    }
+                }
+            } catch (InterruptedException ignored) {
+            } catch (IOException e) {
+                log(Level.WARNING, "Language file watcher stopped.", e);
+            }
+        }, "TextUtil-Watcher");
+        watcher.setDaemon(true);
+        watcher.start();
     }
 
     /* ------------------------- */
@@ -70,24 +213,39 @@ public class TextUtil {
      * @throws IllegalLanguageException if the language could not be loaded. This may happen because the specified
      *                                  language does not exist or because an {@link IOException} prevented it from
      *                                  loading properly.
-     * @throws NullPointerException if the key does not point to a valid string.
-     * @see TextUtil#load0(Language)
+     * @throws NullPointerException if the key does not point to a valid string in the language or its fallbacks.
+     * @see TextUtil#loadAll()
      * @see LangData#get(String)
      */
-    public synchronized static @NotNull Text get(@NotNull String key, @NotNull Language language, String... format) throws IllegalLanguageException, NullPointerException {
-        checkSingleton();
+    public static @NotNull Text get(@NotNull String key, @NotNull Language language, String... format) throws IllegalLanguageException, NullPointerException {
         return singleton.get0(key, language, format);
     }
 
     /**
-     * Loads all strings of a language file into a {@link LangData} object.
+     * Loads all strings of a language file into a {@link LangData} object and resolves the fallback chains again.
      * @param language {@link Language} to load.
      * @throws IOException if a problem occurs while attempting to load the language file.
      * @throws NullPointerException if no matching language file could be found.
-     * @see TextUtil#load0(Language)
+     * @see TextUtil#loadAll()
      */
-    public synchronized static void load(@NotNull Language language) throws IOException, NullPointerException {
-        checkSingleton();
+    public static void load(@NotNull Language language) throws IOException, NullPointerException {
         singleton.load0(language);
     }
-}
\ No newline at end of file
+
+    /**
+     * Loads all language packs in parallel, resolves their fallback chains and logs keys that are missing compared to
+     * <code>ENGLISH</code>. Should be called on startup, so the first interaction does not have to wait for it.
+     */
+    public static void loadAll() {
+        singleton.loadAll0();
+    }
+
+    /**
+     * Starts watching the external <code>lang</code> directory. Whenever a language file is created, modified or
+     * deleted all packs are reloaded and swapped in atomically.
+     * @throws IOException if the directory does not exist or can not be watched.
+     */
+    public static void watch() throws IOException {
+        singleton.watch0();
+    }
+}
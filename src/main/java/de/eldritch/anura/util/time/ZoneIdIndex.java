@@ -0,0 +1,149 @@
+package de.eldritch.anura.util.time;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * An immutable search index over TZDB zone IDs for autocomplete interactions.
+ * <p>All IDs are lowercased once and indexed by their trigrams, so a query of three or more characters only has to
+ * check the IDs that contain its rarest trigram instead of every available zone. Results are ranked in three tiers:
+ * <ol>
+ *     <li>preferred (e.g. frequently used) zones in the given order</li>
+ *     <li>zones where the query matches the start of the ID or of one of its segments (<code>America/New_York</code>
+ *     matches <code>new</code> and <code>york</code>)</li>
+ *     <li>any other zones that contain the query</li>
+ * </ol>
+ * A search allocates at most one result array of {@link ZoneIdIndex#MAX_RESULTS} entries (plus the lowercase query).
+ */
+public class ZoneIdIndex {
+    /**
+     * Maximum amount of results per search. Discord does not accept more than 25 autocomplete choices.
+     */
+    public static final int MAX_RESULTS = 25;
+
+    private final String[] ids;
+    private final String[] lower;
+
+    // sorted trigram keys and the (ascending) ID indices containing them
+    private final int[]   trigrams;
+    private final int[][] postings;
+
+    public ZoneIdIndex(@NotNull Collection<String> zoneIds) {
+        this.ids   = zoneIds.stream().sorted().toArray(String[]::new);
+        this.lower = new String[ids.length];
+
+        // collect postings (IDs are visited in ascending order, so each list stays sorted)
+        TreeMap<Integer, List<Integer>> map = new TreeMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            lower[i] = ids[i].toLowerCase(Locale.ROOT);
+
+            for (int j = 0; j + 3 <= lower[i].length(); j++) {
+                List<Integer> list = map.computeIfAbsent(trigram(lower[i], j), key -> new ArrayList<>());
+                if (list.isEmpty() || list.get(list.size() - 1) != i)
+                    list.add(i);
+            }
+        }
+
+        this.trigrams = new int[map.size()];
+        this.postings = new int[map.size()][];
+        int k = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : map.entrySet()) {
+            trigrams[k]   = entry.getKey();
+            postings[k++] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Searches for zone IDs containing the query (case-insensitive).
+     * @param query The (partial) user input.
+     * @param preferred Zone IDs that should be ranked first if they match. Entries that are not part of the index are
+     *                  ignored.
+     * @return Up to {@link ZoneIdIndex#MAX_RESULTS} matching zone IDs.
+     */
+    public @NotNull List<String> search(@NotNull String query, @NotNull List<String> preferred) {
+        String q = query.toLowerCase(Locale.ROOT);
+
+        String[] result = new String[MAX_RESULTS];
+        int count = 0;
+
+        // tier 1: preferred zones
+        for (int i = 0; i < preferred.size() && count < MAX_RESULTS; i++) {
+            int pos = Arrays.binarySearch(ids, preferred.get(i));
+            if (pos >= 0 && lower[pos].contains(q) && !contains(result, count, ids[pos]))
+                result[count++] = ids[pos];
+        }
+        int preferredCount = count;
+
+        int[] candidates = candidates(q);
+
+        // tier 2: segment prefix matches
+        int n = candidates == null ? ids.length : candidates.length;
+        for (int i = 0; i < n && count < MAX_RESULTS; i++) {
+            int id = candidates == null ? i : candidates[i];
+            if (matchesSegment(lower[id], q) && !contains(result, preferredCount, ids[id]))
+                result[count++] = ids[id];
+        }
+
+        // tier 3: any other substring matches
+        for (int i = 0; i < n && count < MAX_RESULTS; i++) {
+            int id = candidates == null ? i : candidates[i];
+            if (!matchesSegment(lower[id], q) && lower[id].contains(q) && !contains(result, preferredCount, ids[id]))
+                result[count++] = ids[id];
+        }
+
+        return Arrays.asList(result).subList(0, count);
+    }
+
+    /**
+     * Provides the amount of indexed zone IDs.
+     * @return Amount of IDs.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /* ------------------------- */
+
+    /**
+     * Provides the posting list of the rarest trigram of the query, or <code>null</code> if the query is too short to
+     * use the index (meaning every ID is a candidate).
+     */
+    private int[] candidates(@NotNull String q) {
+        if (q.length() < 3)
+            return null;
+
+        int[] best = null;
+        for (int j = 0; j + 3 <= q.length(); j++) {
+            int pos = Arrays.binarySearch(trigrams, trigram(q, j));
+            if (pos < 0)
+                return new int[0];
+
+            if (best == null || postings[pos].length < best.length)
+                best = postings[pos];
+        }
+        return best;
+    }
+
+    private static boolean matchesSegment(@NotNull String id, @NotNull String q) {
+        if (id.startsWith(q))
+            return true;
+
+        for (int i = 0; i < id.length() - 1; i++) {
+            char c = id.charAt(i);
+            if ((c == '/' || c == '_' || c == '-') && id.startsWith(q, i + 1))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean contains(String[] arr, int length, String value) {
+        for (int i = 0; i < length; i++)
+            if (arr[i].equals(value)) return true;
+        return false;
+    }
+
+    private static int trigram(@NotNull String str, int offset) {
+        return (str.charAt(offset) & 0x3FF) << 20 | (str.charAt(offset + 1) & 0x3FF) << 10 | (str.charAt(offset + 2) & 0x3FF);
+    }
+}